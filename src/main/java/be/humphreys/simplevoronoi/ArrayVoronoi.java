@@ -0,0 +1,2026 @@
+package be.humphreys.simplevoronoi;
+
+/*
+ * The author of this software is Steven Fortune.  Copyright (c) 1994 by AT&T
+ * Bell Laboratories.
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose without fee is hereby granted, provided that this entire notice
+ * is included in all copies of any software which is or includes a copy
+ * or modification of this software and in all copies of the supporting
+ * documentation for such software.
+ * THIS SOFTWARE IS BEING PROVIDED "AS IS", WITHOUT ANY EXPRESS OR IMPLIED
+ * WARRANTY.  IN PARTICULAR, NEITHER THE AUTHORS NOR AT&T MAKE ANY
+ * REPRESENTATION OR WARRANTY OF ANY KIND CONCERNING THE MERCHANTABILITY
+ * OF THIS SOFTWARE OR ITS FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+
+/*
+ * This code was originally written by Stephan Fortune in C code.  I, Shane O'Sullivan,
+ * have since modified it, encapsulating it in a C++ class and, fixing memory leaks and
+ * adding accessors to the Voronoi Edges.
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose without fee is hereby granted, provided that this entire notice
+ * is included in all copies of any software which is or includes a copy
+ * or modification of this software and in all copies of the supporting
+ * documentation for such software.
+ * THIS SOFTWARE IS BEING PROVIDED "AS IS", WITHOUT ANY EXPRESS OR IMPLIED
+ * WARRANTY.  IN PARTICULAR, NEITHER THE AUTHORS NOR AT&T MAKE ANY
+ * REPRESENTATION OR WARRANTY OF ANY KIND CONCERNING THE MERCHANTABILITY
+ * OF THIS SOFTWARE OR ITS FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+
+/*
+ * Java Version by Zhenyu Pan
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose without fee is hereby granted, provided that this entire notice
+ * is included in all copies of any software which is or includes a copy
+ * or modification of this software and in all copies of the supporting
+ * documentation for such software.
+ * THIS SOFTWARE IS BEING PROVIDED "AS IS", WITHOUT ANY EXPRESS OR IMPLIED
+ * WARRANTY.  IN PARTICULAR, NEITHER THE AUTHORS NOR AT&T MAKE ANY
+ * REPRESENTATION OR WARRANTY OF ANY KIND CONCERNING THE MERCHANTABILITY
+ * OF THIS SOFTWARE OR ITS FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+
+import java.awt.Shape;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * The same sweep as {@link Voronoi}, but all sites, vertices, edges and halfedges
+ * are stored in primitive arrays and referred to by their index instead of being
+ * separate objects. The arrays are kept between calls and only grow, so repeated
+ * calls on the same instance do not allocate once the instance has warmed up.
+ *
+ * <p>The generated edges are identical (values and order) to the ones returned by
+ * {@link Voronoi#generateVoronoi(double[], double[], double, double, double, double)}
+ * and can be read through {@link #getEdges()}, or {@link #getEdgeCount()} and the per-edge getters.
+ *
+ * <p>Instances are not thread safe.
+ */
+public class ArrayVoronoi
+{
+    // ************* Private members ******************
+    private double borderMinX, borderMaxX, borderMinY, borderMaxY;
+    // The convex window inside the border, counterclockwise, or null to clip to the border
+    private double[] windowX, windowY;
+    private final VoronoiMesh.Clip windowClip = new VoronoiMesh.Clip();
+    private int siteidx;
+    private double xmin, xmax, ymin, ymax, deltax, deltay;
+    private int nvertices;
+    private int nedges;
+    private int nsites;
+    private int bottomsite;
+    private int sqrt_nsites;
+    private double minDistanceBetweenSites;
+
+    private final static int LE = 0;
+    private final static int RE = 1;
+    private final static int NONE = -1;
+
+    // Sites, in sweep order. siteNbr holds the index of the site in the input.
+    private double[] siteX, siteY;
+    private int[] siteNbr;
+    private final IndexSort sorter = new IndexSort();
+
+    // Vertices created by intersect(); vertNbr is assigned by makevertex()
+    private double[] vertX, vertY;
+    private int[] vertNbr;
+    private int vertCount;
+
+    // Delaunay triangles, the sites (in sweep order) around vertex vertNbr == t at 3t to 3t + 2
+    private int[] triSites;
+
+    // Edges, see Edge
+    private double[] edgeA, edgeB, edgeC;
+    private int[] edgeReg0, edgeReg1;
+    private int[] edgeEp0, edgeEp1;
+    // The bisectors in the order the sweep clipped them, for clipping them again
+    private int[] clipOrder;
+    private int clipCount;
+
+    // Halfedges, see Halfedge. The first PQhashsize halfedges are the heads of the PQ buckets.
+    private int[] heLeft, heRight, heEdge, hePm, heVertex, hePQnext, hePQindex, hePQseq;
+    private int[] heBLleft, heBLright, heBLparent, heBLpriority;
+    private double[] heYstar;
+    private boolean[] heDeleted;
+    private int heCount;
+
+    private int PQcount;
+    private int PQmin;
+    private int PQhashsize;
+    private double PQminX, PQminY;
+    private EventQueue eventQueue = EventQueue.BUCKET;
+    private boolean PQuseheap;
+    private int[] PQheap;
+    private int PQseq;
+
+    private int ELhashsize;
+    private int[] ELhash;
+    private int ELleftend, ELrightend;
+    private BeachLine beachLine = BeachLine.HASH;
+    private boolean ELusetree;
+    private int ELroot;
+    private int ELseed;
+
+    // Generated edges
+    private final EdgeBuffer out = new EdgeBuffer(0);
+    // Receives the clipped edges, out unless the caller streams them
+    private EdgeConsumer sink = out;
+    // False while the sweep only builds the triangles
+    private boolean clipping = true;
+
+    /*********************************************************
+     * Public methods
+     ********************************************************/
+
+    public ArrayVoronoi(double minDistanceBetweenSites)
+    {
+        this.minDistanceBetweenSites = minDistanceBetweenSites;
+        siteX = siteY = new double[0];
+        siteNbr = new int[0];
+        vertX = vertY = new double[0];
+        vertNbr = new int[0];
+        triSites = new int[0];
+        edgeA = edgeB = edgeC = new double[0];
+        edgeReg0 = edgeReg1 = edgeEp0 = edgeEp1 = clipOrder = new int[0];
+        heLeft = heRight = heEdge = hePm = heVertex = hePQnext = hePQindex = hePQseq = new int[0];
+        heBLleft = heBLright = heBLparent = heBLpriority = new int[0];
+        heYstar = new double[0];
+        heDeleted = new boolean[0];
+        ELhash = new int[0];
+        PQheap = new int[0];
+    }
+
+    /**
+     *
+     * @param xValuesIn Array of X values for each site.
+     * @param yValuesIn Array of Y values for each site. Must be identical length to yValuesIn
+     * @param minX The minimum X of the bounding box around the voronoi
+     * @param maxX The maximum X of the bounding box around the voronoi
+     * @param minY The minimum Y of the bounding box around the voronoi
+     * @param maxY The maximum Y of the bounding box around the voronoi
+     * @return The amount of generated voronoi edges
+     */
+    public int generateVoronoi(double[] xValuesIn, double[] yValuesIn,
+            double minX, double maxX, double minY, double maxY)
+    {
+        if (xValuesIn.length != yValuesIn.length)
+        {
+            throw new IllegalArgumentException("xValuesIn and yValuesIn differ in length: "
+                    + xValuesIn.length + " vs. " + yValuesIn.length);
+        }
+        return generateVoronoi(xValuesIn, yValuesIn, xValuesIn.length, minX, maxX, minY, maxY);
+    }
+
+    /**
+     * Hand every edge to the consumer as soon as it is clipped, instead of collecting
+     * the edges. {@link #getEdgeCount()} is 0 afterwards.
+     *
+     * @param xValuesIn Array of X values for each site.
+     * @param yValuesIn Array of Y values for each site. Must be identical length to yValuesIn
+     * @param minX The minimum X of the bounding box around the voronoi
+     * @param maxX The maximum X of the bounding box around the voronoi
+     * @param minY The minimum Y of the bounding box around the voronoi
+     * @param maxY The maximum Y of the bounding box around the voronoi
+     * @param consumer receives the generated voronoi edges
+     */
+    public void generateVoronoi(double[] xValuesIn, double[] yValuesIn,
+            double minX, double maxX, double minY, double maxY, EdgeConsumer consumer)
+    {
+        if (consumer == null)
+        {
+            throw new NullPointerException("consumer");
+        }
+        sink = consumer;
+        try
+        {
+            generateVoronoi(xValuesIn, yValuesIn, minX, maxX, minY, maxY);
+        } finally
+        {
+            sink = out;
+        }
+    }
+
+    /**
+     * Clip the diagram to a convex polygon instead of a box, for example a hexagonal map. The
+     * edges are clipped to the polygon in the sweep, and the mesh and the cells are closed
+     * along its sides.
+     *
+     * @param xValuesIn Array of X values for each site.
+     * @param yValuesIn Array of Y values for each site. Must be identical length to yValuesIn
+     * @param windowX the X values of the corners of the polygon, in either direction
+     * @param windowY the Y values of the corners of the polygon
+     * @return The amount of generated voronoi edges
+     * @throws IllegalArgumentException if the polygon is not convex
+     */
+    public int generateVoronoi(double[] xValuesIn, double[] yValuesIn, double[] windowX, double[] windowY)
+    {
+        if (xValuesIn.length != yValuesIn.length)
+        {
+            throw new IllegalArgumentException("xValuesIn and yValuesIn differ in length: "
+                    + xValuesIn.length + " vs. " + yValuesIn.length);
+        }
+        setWindow(windowX, windowY);
+        return sweep(xValuesIn, yValuesIn, xValuesIn.length);
+    }
+
+    /**
+     * Clip the diagram to a convex shape, for example a circle. Curves are flattened to
+     * lines that are within a thousandth of the size of the shape.
+     *
+     * @param xValuesIn Array of X values for each site.
+     * @param yValuesIn Array of Y values for each site. Must be identical length to yValuesIn
+     * @param window the convex shape
+     * @return The amount of generated voronoi edges
+     * @throws IllegalArgumentException if the shape is not convex
+     * @see #generateVoronoi(double[], double[], double[], double[])
+     */
+    public int generateVoronoi(double[] xValuesIn, double[] yValuesIn, Shape window)
+    {
+        double[][] polygon = flatten(window);
+        return generateVoronoi(xValuesIn, yValuesIn, polygon[0], polygon[1]);
+    }
+
+    /*
+     * Same as above for the first count sites of the arrays, so that callers can keep
+     * their (larger) buffers.
+     */
+    int generateVoronoi(double[] xValuesIn, double[] yValuesIn, int count,
+            double minX, double maxX, double minY, double maxY)
+    {
+        setBorder(minX, maxX, minY, maxY);
+        return sweep(xValuesIn, yValuesIn, count);
+    }
+
+    /*
+     * Run the sweep for the triangles only. The bisectors are not clipped, so there are no
+     * edges afterwards, but reclip can clip them later.
+     */
+    int triangulate(double[] xValuesIn, double[] yValuesIn)
+    {
+        if (xValuesIn.length != yValuesIn.length)
+        {
+            throw new IllegalArgumentException("xValuesIn and yValuesIn differ in length: "
+                    + xValuesIn.length + " vs. " + yValuesIn.length);
+        }
+        clipping = false;
+        try
+        {
+            sweep(xValuesIn, yValuesIn, xValuesIn.length);
+        } finally
+        {
+            clipping = true;
+        }
+        return getTriangleCount();
+    }
+
+    // Run the sweep, the border or window is already set
+    private int sweep(double[] xValuesIn, double[] yValuesIn, int count)
+    {
+        out.clear();
+        if (count == 0)
+        {
+            nsites = 0;
+            nvertices = 0;
+            nedges = 0;
+            vertCount = 0;
+            clipCount = 0;
+            return 0;
+        }
+        sortNode(xValuesIn, yValuesIn, count);
+        voronoi_bd();
+        return out.size();
+    }
+
+    /**
+     * Select the implementation of the vertex event queue. Defaults to {@link EventQueue#BUCKET}.
+     *
+     * @param eventQueue the queue to use for the next calls of generateVoronoi
+     * @see Voronoi#setEventQueue(EventQueue)
+     */
+    public void setEventQueue(EventQueue eventQueue)
+    {
+        if (eventQueue == null)
+        {
+            throw new NullPointerException("eventQueue");
+        }
+        this.eventQueue = eventQueue;
+    }
+
+    public EventQueue getEventQueue()
+    {
+        return eventQueue;
+    }
+
+    /**
+     * Select the structure used to locate new sites on the beach line. Defaults to {@link BeachLine#HASH}.
+     *
+     * @param beachLine the structure to use for the next calls of generateVoronoi
+     * @see Voronoi#setBeachLine(BeachLine)
+     */
+    public void setBeachLine(BeachLine beachLine)
+    {
+        if (beachLine == null)
+        {
+            throw new NullPointerException("beachLine");
+        }
+        this.beachLine = beachLine;
+    }
+
+    public BeachLine getBeachLine()
+    {
+        return beachLine;
+    }
+
+    /**
+     * @return the amount of edges generated by the latest call to generateVoronoi
+     */
+    public int getEdgeCount()
+    {
+        return out.size();
+    }
+
+    public double getX1(int edge)
+    {
+        return out.getX1(edge);
+    }
+
+    public double getY1(int edge)
+    {
+        return out.getY1(edge);
+    }
+
+    public double getX2(int edge)
+    {
+        return out.getX2(edge);
+    }
+
+    public double getY2(int edge)
+    {
+        return out.getY2(edge);
+    }
+
+    /**
+     * @param edge the index of the edge
+     * @return the index of the input site on the one side of the edge
+     */
+    public int getSite1(int edge)
+    {
+        return out.getSite1(edge);
+    }
+
+    /**
+     * @param edge the index of the edge
+     * @return the index of the input site on the other side of the edge
+     */
+    public int getSite2(int edge)
+    {
+        return out.getSite2(edge);
+    }
+
+    /**
+     * Copies the edges of the latest call to generateVoronoi into {@link GraphEdge} instances.
+     * This allocates an object per edge and is meant for callers that need the same
+     * representation as {@link Voronoi}.
+     *
+     * @return the generated voronoi edges
+     */
+    public List<GraphEdge> getGraphEdges()
+    {
+        List<GraphEdge> edges = new ArrayList<>(out.size());
+        for (int i = 0; i < out.size(); i++)
+        {
+            edges.add(out.get(i, new GraphEdge()));
+        }
+        return edges;
+    }
+
+    /**
+     * The edges of the latest call to generateVoronoi. The buffer belongs to this instance
+     * and is overwritten by the next call.
+     *
+     * @return the generated voronoi edges
+     */
+    public EdgeBuffer getEdges()
+    {
+        return out;
+    }
+
+    /**
+     * Clip the diagram of the latest call to generateVoronoi to another bounding box without
+     * running the sweep again, for example when the view is panned. The sweep does not depend
+     * on the box, so the edges are identical (values and order) to the ones of generateVoronoi
+     * with the new box. They replace the edges of the latest call, and the mesh and cells are
+     * built for the new box from now on.
+     *
+     * @param minX The minimum X of the new bounding box
+     * @param maxX The maximum X of the new bounding box
+     * @param minY The minimum Y of the new bounding box
+     * @param maxY The maximum Y of the new bounding box
+     * @return The amount of clipped voronoi edges
+     */
+    public int reclip(double minX, double maxX, double minY, double maxY)
+    {
+        out.clear();
+        setBorder(minX, maxX, minY, maxY);
+        for (int i = 0; i < clipCount; i++)
+        {
+            clip_line(clipOrder[i], borderMinX, borderMaxX, borderMinY, borderMaxY, windowClip, out);
+        }
+        return out.size();
+    }
+
+    /**
+     * Same as {@link #reclip(double, double, double, double)} for a convex polygon, see
+     * {@link #generateVoronoi(double[], double[], double[], double[])}.
+     *
+     * @param windowX the X values of the corners of the polygon, in either direction
+     * @param windowY the Y values of the corners of the polygon
+     * @return The amount of clipped voronoi edges
+     * @throws IllegalArgumentException if the polygon is not convex
+     */
+    public int reclip(double[] windowX, double[] windowY)
+    {
+        out.clear();
+        setWindow(windowX, windowY);
+        for (int i = 0; i < clipCount; i++)
+        {
+            clip_line(clipOrder[i], borderMinX, borderMaxX, borderMinY, borderMaxY, windowClip, out);
+        }
+        return out.size();
+    }
+
+    /**
+     * Same as {@link #reclip(double, double, double, double)} for a convex shape, see
+     * {@link #generateVoronoi(double[], double[], Shape)}.
+     *
+     * @param window the convex shape
+     * @return The amount of clipped voronoi edges
+     * @throws IllegalArgumentException if the shape is not convex
+     */
+    public int reclip(Shape window)
+    {
+        double[][] polygon = flatten(window);
+        return reclip(polygon[0], polygon[1]);
+    }
+
+    /**
+     * Same as {@link #reclip(double, double, double, double)}, but hands every edge to the
+     * consumer instead of collecting the edges. {@link #getEdgeCount()} is 0 afterwards.
+     *
+     * @param minX The minimum X of the new bounding box
+     * @param maxX The maximum X of the new bounding box
+     * @param minY The minimum Y of the new bounding box
+     * @param maxY The maximum Y of the new bounding box
+     * @param consumer receives the clipped voronoi edges
+     */
+    public void reclip(double minX, double maxX, double minY, double maxY, EdgeConsumer consumer)
+    {
+        out.clear();
+        setBorder(minX, maxX, minY, maxY);
+        for (int i = 0; i < clipCount; i++)
+        {
+            clip_line(clipOrder[i], borderMinX, borderMaxX, borderMinY, borderMaxY, windowClip, consumer);
+        }
+    }
+
+    /**
+     * Same as {@link #reclip(double, double, double, double)}, with ranges of the edges
+     * clipped in parallel. The edges are in the same order.
+     *
+     * @param minX The minimum X of the new bounding box
+     * @param maxX The maximum X of the new bounding box
+     * @param minY The minimum Y of the new bounding box
+     * @param maxY The maximum Y of the new bounding box
+     * @param pool clips the ranges of edges
+     * @return The amount of clipped voronoi edges
+     */
+    public int reclip(double minX, double maxX, double minY, double maxY, ForkJoinPool pool)
+    {
+        out.clear();
+        setBorder(minX, maxX, minY, maxY);
+        int count = Math.max(1, Math.min(clipCount / 4096, 4 * pool.getParallelism()));
+        EdgeBuffer[] parts = new EdgeBuffer[count];
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            int lo = (int) ((long) clipCount * i / count);
+            int hi = (int) ((long) clipCount * (i + 1) / count);
+            EdgeBuffer part = new EdgeBuffer(hi - lo);
+            parts[i] = part;
+            tasks.add(pool.submit(() ->
+            {
+                VoronoiMesh.Clip clip = new VoronoiMesh.Clip();
+                for (int k = lo; k < hi; k++)
+                {
+                    clip_line(clipOrder[k], borderMinX, borderMaxX, borderMinY, borderMaxY, clip, part);
+                }
+            }));
+        }
+        for (int i = 0; i < count; i++)
+        {
+            tasks.get(i).join();
+            EdgeBuffer part = parts[i];
+            for (int k = 0; k < part.size(); k++)
+            {
+                out.add(part.getX1(k), part.getY1(k), part.getX2(k), part.getY2(k), part.getSite1(k), part.getSite2(k));
+            }
+        }
+        return out.size();
+    }
+
+    /**
+     * The Delaunay triangulation of the sites of the latest call to generateVoronoi, which the
+     * sweep records at every vertex. It covers the convex hull of all sites and does not
+     * depend on the bounding box or the minimal distance. The sites have to be distinct.
+     *
+     * @return the amount of triangles
+     */
+    public int getTriangleCount()
+    {
+        return nvertices;
+    }
+
+    /**
+     * @return a new array with the indices of the input sites of every triangle, three per
+     *         triangle and counterclockwise (in a y up coordinate system)
+     */
+    public int[] getTriangles()
+    {
+        int[] triangles = new int[3 * nvertices];
+        for (int t = 0; t < triangles.length; t += 3)
+        {
+            int a = triSites[t], b = triSites[t + 1], c = triSites[t + 2];
+            double cross = (siteX[b] - siteX[a]) * (siteY[c] - siteY[a]) - (siteY[b] - siteY[a]) * (siteX[c] - siteX[a]);
+            triangles[t] = siteNbr[a];
+            triangles[t + 1] = siteNbr[cross < 0 ? c : b];
+            triangles[t + 2] = siteNbr[cross < 0 ? b : c];
+        }
+        return triangles;
+    }
+
+    /**
+     * The neighbours of the triangles of {@link #getTriangles()}: entry 3t + k is the triangle
+     * that shares the edge opposite to the k-th site of triangle t, or -1 on the convex hull.
+     *
+     * @return a new array with three neighbours per triangle
+     */
+    public int[] getTriangleNeighbors()
+    {
+        int[] triangles = getTriangles();
+        int[] neighbors = new int[triangles.length];
+        Arrays.fill(neighbors, NONE);
+        // Every bisector between two vertices is the dual of an inner Delaunay edge
+        for (int e = 0; e < nedges; e++)
+        {
+            if (edgeEp0[e] != NONE && edgeEp1[e] != NONE)
+            {
+                int t0 = vertNbr[edgeEp0[e]];
+                int t1 = vertNbr[edgeEp1[e]];
+                int s0 = siteNbr[edgeReg0[e]];
+                int s1 = siteNbr[edgeReg1[e]];
+                neighbors[3 * t0 + opposite(triangles, t0, s0, s1)] = t1;
+                neighbors[3 * t1 + opposite(triangles, t1, s0, s1)] = t0;
+            }
+        }
+        return neighbors;
+    }
+
+    // The corner of the triangle that is neither s0 nor s1
+    private static int opposite(int[] triangles, int t, int s0, int s1)
+    {
+        int k = 0;
+        while (k < 2 && (triangles[3 * t + k] == s0 || triangles[3 * t + k] == s1))
+        {
+            k++;
+        }
+        return k;
+    }
+
+    /**
+     * Builds the indexed mesh of the latest call to generateVoronoi from the vertices and
+     * bisectors the sweep computed, clipped to the bounding box or the convex window. The
+     * mesh holds every bisector, also those between sites closer than the minimal distance.
+     *
+     * @return a new mesh owned by the caller
+     */
+    public VoronoiMesh getMesh()
+    {
+        if (windowX != null)
+        {
+            return VoronoiMesh.build(this, windowX, windowY);
+        }
+        return VoronoiMesh.build(this, borderMinX, borderMaxX, borderMinY, borderMaxY);
+    }
+
+    /**
+     * Builds the cell of every site of the latest call to generateVoronoi, clipped to the
+     * bounding box or the convex window, see {@link VoronoiCells}. Like the mesh, the cells ignore the minimal
+     * distance between sites.
+     *
+     * @return new cells owned by the caller
+     */
+    public VoronoiCells getCells()
+    {
+        return VoronoiCells.build(this, getMesh(), nsites);
+    }
+
+    /**
+     * Builds the doubly connected edge list of the cells of the latest call to generateVoronoi,
+     * see {@link VoronoiHalfEdges}.
+     *
+     * @return new half edges owned by the caller
+     */
+    public VoronoiHalfEdges getHalfEdges()
+    {
+        return VoronoiHalfEdges.build(getCells());
+    }
+
+    /*
+     * Access to the complete diagram of the latest call for ParallelVoronoi, including the
+     * bisectors that clip_line dropped. Sites are given by their index in the input, the
+     * ends of a bisector by their vertex or -1 if the bisector goes to infinity.
+     */
+    int getBisectorCount()
+    {
+        return nedges;
+    }
+
+    int getBisectorSite(int e, int side)
+    {
+        return siteNbr[side == LE ? edgeReg0[e] : edgeReg1[e]];
+    }
+
+    // The input index of the site at the given position of the sweep order
+    int getSweepSite(int i)
+    {
+        return siteNbr[i];
+    }
+
+    // The position of the site in the sweep order
+    int getBisectorSweepSite(int e, int side)
+    {
+        return side == LE ? edgeReg0[e] : edgeReg1[e];
+    }
+
+    int getBisectorEnd(int e, int side)
+    {
+        return side == LE ? edgeEp0[e] : edgeEp1[e];
+    }
+
+    // The amount of vertex slots, including intersections that never became a vertex
+    int getVertexCount()
+    {
+        return vertCount;
+    }
+
+    double getVertexX(int v)
+    {
+        return vertX[v];
+    }
+
+    double getVertexY(int v)
+    {
+        return vertY[v];
+    }
+
+    /*
+     * The bisector is the line a * x + b * y = c, with a == 1 or b == 1.
+     */
+    double getBisectorA(int e)
+    {
+        return edgeA[e];
+    }
+
+    double getBisectorB(int e)
+    {
+        return edgeB[e];
+    }
+
+    double getBisectorC(int e)
+    {
+        return edgeC[e];
+    }
+
+    double getBisectorSiteX(int e, int side)
+    {
+        return siteX[side == LE ? edgeReg0[e] : edgeReg1[e]];
+    }
+
+    double getBisectorSiteY(int e, int side)
+    {
+        return siteY[side == LE ? edgeReg0[e] : edgeReg1[e]];
+    }
+
+    /*
+     * Stores the direction in which the bisector runs towards the given end into dir.
+     * clip_line relies on the same orientation: ep[0] is the end with the smaller x,
+     * unless a == 1 and b >= 0, where ep[1] is the end with the smaller y.
+     */
+    void getBisectorDirection(int e, int side, double[] dir)
+    {
+        double a = edgeA[e], b = edgeB[e];
+        if (a == 1.0)
+        {
+            int low = b >= 0.0 ? RE : LE;
+            dir[0] = side == low ? b : -b;
+            dir[1] = side == low ? -1.0 : 1.0;
+        } else
+        {
+            dir[0] = side == LE ? -1.0 : 1.0;
+            dir[1] = side == LE ? a : -a;
+        }
+    }
+
+    private void setBorder(double minX, double maxX, double minY, double maxY)
+    {
+        // Check bounding box inputs - if mins are bigger than maxes, swap them
+        double temp = 0;
+        if (minX > maxX)
+        {
+            temp = minX;
+            minX = maxX;
+            maxX = temp;
+        }
+        if (minY > maxY)
+        {
+            temp = minY;
+            minY = maxY;
+            maxY = temp;
+        }
+        borderMinX = minX;
+        borderMinY = minY;
+        borderMaxX = maxX;
+        borderMaxY = maxY;
+        windowX = windowY = null;
+    }
+
+    // Clip to a convex polygon, with its bounding box as the border
+    private void setWindow(double[] x, double[] y)
+    {
+        double[][] window = convexWindow(x, y);
+        double minX = window[0][0], maxX = minX, minY = window[1][0], maxY = minY;
+        for (int i = 1; i < window[0].length; i++)
+        {
+            minX = Math.min(minX, window[0][i]);
+            maxX = Math.max(maxX, window[0][i]);
+            minY = Math.min(minY, window[1][i]);
+            maxY = Math.max(maxY, window[1][i]);
+        }
+        setBorder(minX, maxX, minY, maxY);
+        windowX = window[0];
+        windowY = window[1];
+    }
+
+    /*
+     * The corners of a convex polygon counterclockwise, without repeated corners.
+     */
+    static double[][] convexWindow(double[] x, double[] y)
+    {
+        if (x.length != y.length)
+        {
+            throw new IllegalArgumentException("The window has " + x.length + " X and " + y.length + " Y values");
+        }
+        double[] wx = new double[x.length];
+        double[] wy = new double[y.length];
+        int m = 0;
+        for (int i = 0; i < x.length; i++)
+        {
+            if (m == 0 || x[i] != wx[m - 1] || y[i] != wy[m - 1])
+            {
+                wx[m] = x[i];
+                wy[m++] = y[i];
+            }
+        }
+        while (m > 1 && wx[0] == wx[m - 1] && wy[0] == wy[m - 1])
+        {
+            m--;
+        }
+        double area = 0;
+        for (int i = 0; i < m; i++)
+        {
+            int k = i + 1 == m ? 0 : i + 1;
+            area += wx[i] * wy[k] - wx[k] * wy[i];
+        }
+        if (m < 3 || !(area != 0))
+        {
+            throw new IllegalArgumentException("The window has no area");
+        }
+        wx = Arrays.copyOf(wx, m);
+        wy = Arrays.copyOf(wy, m);
+        if (area < 0)
+        {
+            for (int i = 0, j = m - 1; i < j; i++, j--)
+            {
+                double t = wx[i];
+                wx[i] = wx[j];
+                wx[j] = t;
+                t = wy[i];
+                wy[i] = wy[j];
+                wy[j] = t;
+            }
+        }
+        // Every corner turns left, and all of them together once around: a star like a
+        // pentagram turns left at every corner too, but goes around twice
+        double turn = 0;
+        for (int i = 0; i < m; i++)
+        {
+            int j = i + 1 == m ? 0 : i + 1;
+            int k = j + 1 == m ? 0 : j + 1;
+            double cross = (wx[j] - wx[i]) * (wy[k] - wy[j]) - (wy[j] - wy[i]) * (wx[k] - wx[j]);
+            if (cross < 0)
+            {
+                throw new IllegalArgumentException("The window is not convex");
+            }
+            turn += Math.atan2(cross, (wx[j] - wx[i]) * (wx[k] - wx[j]) + (wy[j] - wy[i]) * (wy[k] - wy[j]));
+        }
+        if (turn > 3 * Math.PI)
+        {
+            throw new IllegalArgumentException("The window is not convex");
+        }
+        return new double[][] { wx, wy };
+    }
+
+    /*
+     * The corners of a shape with a single outline, with curves flattened.
+     */
+    static double[][] flatten(Shape shape)
+    {
+        Rectangle2D bounds = shape.getBounds2D();
+        double flatness = Math.max(bounds.getWidth(), bounds.getHeight()) / 1000;
+        double[] x = new double[16], y = new double[16];
+        double[] point = new double[6];
+        int m = 0;
+        for (PathIterator it = shape.getPathIterator(null, flatness); !it.isDone(); it.next())
+        {
+            int type = it.currentSegment(point);
+            if (type == PathIterator.SEG_MOVETO && m > 0)
+            {
+                throw new IllegalArgumentException("The window has more than one outline");
+            }
+            if (type != PathIterator.SEG_CLOSE)
+            {
+                if (m == x.length)
+                {
+                    x = Arrays.copyOf(x, 2 * m);
+                    y = Arrays.copyOf(y, 2 * m);
+                }
+                x[m] = point[0];
+                y[m++] = point[1];
+            }
+        }
+        return new double[][] { Arrays.copyOf(x, m), Arrays.copyOf(y, m) };
+    }
+
+    /*********************************************************
+     * Private methods - implementation details
+     ********************************************************/
+
+    /*
+     * Make sure that all buffers can hold a diagram of n sites. A diagram of n sites
+     * has at most 3n edges and 2n vertex events, so intersect() is called at most
+     * 6n times. The allocation routines below still grow the buffers should these
+     * estimates ever be exceeded.
+     */
+    private void ensureCapacity(int n)
+    {
+        if (siteX.length < n)
+        {
+            siteX = new double[n];
+            siteY = new double[n];
+            siteNbr = new int[n];
+        }
+        int edges = 3 * n + 1;
+        if (edgeA.length < edges)
+        {
+            growEdges(edges);
+        }
+        if (sink == out && clipping)
+        {
+            out.ensureCapacity(EdgeBuffer.expectedEdges(n));
+        }
+        int vertices = 6 * n + 1;
+        if (vertX.length < vertices)
+        {
+            growVertices(vertices);
+        }
+        if (triSites.length < 6 * n)
+        {
+            triSites = new int[6 * n];
+        }
+        int halfedges = 4 * sqrt_nsites + 2 + 2 * edges;
+        if (heLeft.length < halfedges)
+        {
+            growHalfedges(halfedges);
+        }
+        if (ELhash.length < 2 * sqrt_nsites)
+        {
+            ELhash = new int[2 * sqrt_nsites];
+        }
+        if (eventQueue == EventQueue.HEAP && PQheap.length < 2 * n + 1)
+        {
+            PQheap = new int[2 * n + 1];
+        }
+    }
+
+    private void growEdges(int capacity)
+    {
+        edgeA = Arrays.copyOf(edgeA, capacity);
+        edgeB = Arrays.copyOf(edgeB, capacity);
+        edgeC = Arrays.copyOf(edgeC, capacity);
+        edgeReg0 = Arrays.copyOf(edgeReg0, capacity);
+        edgeReg1 = Arrays.copyOf(edgeReg1, capacity);
+        edgeEp0 = Arrays.copyOf(edgeEp0, capacity);
+        edgeEp1 = Arrays.copyOf(edgeEp1, capacity);
+        clipOrder = Arrays.copyOf(clipOrder, capacity);
+    }
+
+    private void growVertices(int capacity)
+    {
+        vertX = Arrays.copyOf(vertX, capacity);
+        vertY = Arrays.copyOf(vertY, capacity);
+        vertNbr = Arrays.copyOf(vertNbr, capacity);
+    }
+
+    private void growHalfedges(int capacity)
+    {
+        heLeft = Arrays.copyOf(heLeft, capacity);
+        heRight = Arrays.copyOf(heRight, capacity);
+        heEdge = Arrays.copyOf(heEdge, capacity);
+        hePm = Arrays.copyOf(hePm, capacity);
+        heVertex = Arrays.copyOf(heVertex, capacity);
+        hePQnext = Arrays.copyOf(hePQnext, capacity);
+        hePQindex = Arrays.copyOf(hePQindex, capacity);
+        hePQseq = Arrays.copyOf(hePQseq, capacity);
+        heBLleft = Arrays.copyOf(heBLleft, capacity);
+        heBLright = Arrays.copyOf(heBLright, capacity);
+        heBLparent = Arrays.copyOf(heBLparent, capacity);
+        heBLpriority = Arrays.copyOf(heBLpriority, capacity);
+        heYstar = Arrays.copyOf(heYstar, capacity);
+        heDeleted = Arrays.copyOf(heDeleted, capacity);
+    }
+
+    private void sortNode(double[] xValuesIn, double[] yValuesIn, int count)
+    {
+        int i;
+        nsites = count;
+        nvertices = 0;
+        nedges = 0;
+        vertCount = 0;
+        heCount = 0;
+
+        double sn = (double) nsites + 4;
+        sqrt_nsites = (int) Math.sqrt(sn);
+
+        ensureCapacity(nsites);
+
+        xmin = xValuesIn[0];
+        ymin = yValuesIn[0];
+        xmax = xValuesIn[0];
+        ymax = yValuesIn[0];
+        for (i = 0; i < nsites; i++)
+        {
+            double x = xValuesIn[i];
+            double y = yValuesIn[i];
+
+            if (x < xmin)
+            {
+                xmin = x;
+            } else if (x > xmax)
+            {
+                xmax = x;
+            }
+
+            if (y < ymin)
+            {
+                ymin = y;
+            } else if (y > ymax)
+            {
+                ymax = y;
+            }
+        }
+        sorter.sort(yValuesIn, xValuesIn, nsites, siteNbr);
+        for (i = 0; i < nsites; i++)
+        {
+            siteX[i] = xValuesIn[siteNbr[i]];
+            siteY[i] = yValuesIn[siteNbr[i]];
+        }
+        deltay = ymax - ymin;
+        deltax = xmax - xmin;
+    }
+
+    /* return a single in-storage site */
+    private int nextone()
+    {
+        if (siteidx < nsites)
+        {
+            return siteidx++;
+        }
+        return NONE;
+    }
+
+    private int bisect(int s1, int s2)
+    {
+        double dx, dy, adx, ady;
+        int newedge = nedges;
+
+        if (newedge == edgeA.length)
+        {
+            growEdges(newedge * 2);
+        }
+
+        // store the sites that this edge is bisecting
+        edgeReg0[newedge] = s1;
+        edgeReg1[newedge] = s2;
+        // to begin with, there are no endpoints on the bisector - it goes to
+        // infinity
+        edgeEp0[newedge] = NONE;
+        edgeEp1[newedge] = NONE;
+
+        // get the difference in x dist between the sites
+        dx = siteX[s2] - siteX[s1];
+        dy = siteY[s2] - siteY[s1];
+        // make sure that the difference in positive
+        adx = dx > 0 ? dx : -dx;
+        ady = dy > 0 ? dy : -dy;
+        // get the slope of the line
+        double c = siteX[s1] * dx + siteY[s1] * dy + (dx * dx + dy * dy) * 0.5;
+
+        if (adx > ady)
+        {
+            edgeA[newedge] = 1.0f;
+            edgeB[newedge] = dy / dx;
+            edgeC[newedge] = c / dx;// set formula of line, with x fixed to 1
+        } else
+        {
+            edgeB[newedge] = 1.0f;
+            edgeA[newedge] = dx / dy;
+            edgeC[newedge] = c / dy;// set formula of line, with y fixed to 1
+        }
+
+        nedges += 1;
+        return (newedge);
+    }
+
+    private void makevertex(int v)
+    {
+        vertNbr[v] = nvertices;
+        nvertices += 1;
+    }
+
+    // The sites of the three arcs that meet at a vertex event form a Delaunay triangle
+    private void maketriangle(int left, int middle, int right)
+    {
+        int t = 3 * (nvertices - 1);
+        if (t + 3 > triSites.length)
+        {
+            triSites = Arrays.copyOf(triSites, 2 * t + 3);
+        }
+        triSites[t] = left;
+        triSites[t + 1] = middle;
+        triSites[t + 2] = right;
+    }
+
+    private int newvertex(double x, double y)
+    {
+        if (vertCount == vertX.length)
+        {
+            growVertices(vertCount * 2);
+        }
+        vertX[vertCount] = x;
+        vertY[vertCount] = y;
+        return vertCount++;
+    }
+
+    private int newhalfedge()
+    {
+        if (heCount == heLeft.length)
+        {
+            growHalfedges(heCount * 2);
+        }
+        int he = heCount++;
+        heLeft[he] = NONE;
+        heRight[he] = NONE;
+        heEdge[he] = NONE;
+        hePm[he] = 0;
+        heVertex[he] = NONE;
+        hePQnext[he] = NONE;
+        heYstar[he] = 0;
+        heDeleted[he] = false;
+        heBLleft[he] = NONE;
+        heBLright[he] = NONE;
+        heBLparent[he] = NONE;
+        return he;
+    }
+
+    private boolean PQinitialize()
+    {
+        PQcount = 0;
+        PQmin = 0;
+        PQseq = 0;
+        PQuseheap = eventQueue == EventQueue.HEAP;
+        PQhashsize = 4 * sqrt_nsites;
+
+        // The bucket heads are the first PQhashsize halfedges
+        for (int i = 0; i < PQhashsize; i += 1)
+        {
+            newhalfedge();
+        }
+        return true;
+    }
+
+    private int PQbucket(int he)
+    {
+        int bucket;
+
+        bucket = (int) ((heYstar[he] - ymin) / deltay * PQhashsize);
+        if (bucket < 0)
+        {
+            bucket = 0;
+        }
+        if (bucket >= PQhashsize)
+        {
+            bucket = PQhashsize - 1;
+        }
+        if (bucket < PQmin)
+        {
+            PQmin = bucket;
+        }
+        return (bucket);
+    }
+
+    // push the HalfEdge into the ordered linked list of vertices
+    private void PQinsert(int he, int v, double offset)
+    {
+        int last, next;
+
+        heVertex[he] = v;
+        heYstar[he] = vertY[v] + offset;
+        if (PQuseheap)
+        {
+            PQheapinsert(he);
+            return;
+        }
+        last = PQbucket(he);
+        while ((next = hePQnext[last]) != NONE
+                && (heYstar[he] > heYstar[next] || (heYstar[he] == heYstar[next] && vertX[v] > vertX[heVertex[next]])))
+        {
+            last = next;
+        }
+        hePQnext[he] = hePQnext[last];
+        hePQnext[last] = he;
+        PQcount += 1;
+    }
+
+    // remove the HalfEdge from the list of vertices
+    private void PQdelete(int he)
+    {
+        int last;
+
+        if (heVertex[he] != NONE && PQuseheap)
+        {
+            PQheapremove(he);
+            heVertex[he] = NONE;
+        } else if (heVertex[he] != NONE)
+        {
+            last = PQbucket(he);
+            while (hePQnext[last] != he)
+            {
+                last = hePQnext[last];
+            }
+
+            hePQnext[last] = hePQnext[he];
+            PQcount -= 1;
+            heVertex[he] = NONE;
+        }
+    }
+
+    private boolean PQempty()
+    {
+        return (PQcount == 0);
+    }
+
+    // Stores the result in PQminX and PQminY
+    private void PQ_min()
+    {
+        if (PQuseheap)
+        {
+            PQminX = vertX[heVertex[PQheap[0]]];
+            PQminY = heYstar[PQheap[0]];
+            return;
+        }
+        while (hePQnext[PQmin] == NONE)
+        {
+            PQmin += 1;
+        }
+        PQminX = vertX[heVertex[hePQnext[PQmin]]];
+        PQminY = heYstar[hePQnext[PQmin]];
+    }
+
+    private int PQextractmin()
+    {
+        int curr;
+
+        if (PQuseheap)
+        {
+            curr = PQheap[0];
+            PQheapremove(curr);
+            return (curr);
+        }
+        curr = hePQnext[PQmin];
+        hePQnext[PQmin] = hePQnext[curr];
+        PQcount -= 1;
+        return (curr);
+    }
+
+    /*
+     * Indexed 4-ary heap with the same order as the bucket lists, see Voronoi.PQless
+     */
+    private boolean PQless(int a, int b)
+    {
+        if (heYstar[a] != heYstar[b])
+        {
+            return heYstar[a] < heYstar[b];
+        }
+        double ax = vertX[heVertex[a]], bx = vertX[heVertex[b]];
+        if (ax != bx)
+        {
+            return ax < bx;
+        }
+        return hePQseq[a] > hePQseq[b];
+    }
+
+    private void PQheapinsert(int he)
+    {
+        if (PQcount == PQheap.length)
+        {
+            PQheap = Arrays.copyOf(PQheap, PQcount * 2);
+        }
+        hePQseq[he] = PQseq++;
+        PQcount += 1;
+        PQsiftup(he, PQcount - 1);
+    }
+
+    private void PQheapremove(int he)
+    {
+        int i = hePQindex[he];
+        PQcount -= 1;
+        int last = PQheap[PQcount];
+        if (last != he)
+        {
+            if (i > 0 && PQless(last, PQheap[(i - 1) >> 2]))
+            {
+                PQsiftup(last, i);
+            } else
+            {
+                PQsiftdown(last, i);
+            }
+        }
+        hePQindex[he] = NONE;
+    }
+
+    private void PQsiftup(int he, int i)
+    {
+        while (i > 0)
+        {
+            int parent = (i - 1) >> 2;
+            int p = PQheap[parent];
+            if (!PQless(he, p))
+            {
+                break;
+            }
+            PQheap[i] = p;
+            hePQindex[p] = i;
+            i = parent;
+        }
+        PQheap[i] = he;
+        hePQindex[he] = i;
+    }
+
+    private void PQsiftdown(int he, int i)
+    {
+        while (true)
+        {
+            int child = 4 * i + 1;
+            if (child >= PQcount)
+            {
+                break;
+            }
+            int end = Math.min(child + 4, PQcount);
+            int min = child;
+            for (int c = child + 1; c < end; c++)
+            {
+                if (PQless(PQheap[c], PQheap[min]))
+                {
+                    min = c;
+                }
+            }
+            if (!PQless(PQheap[min], he))
+            {
+                break;
+            }
+            PQheap[i] = PQheap[min];
+            hePQindex[PQheap[i]] = i;
+            i = min;
+        }
+        PQheap[i] = he;
+        hePQindex[he] = i;
+    }
+
+    private int HEcreate(int e, int pm)
+    {
+        int answer = newhalfedge();
+        heEdge[answer] = e;
+        hePm[answer] = pm;
+        return (answer);
+    }
+
+    private boolean ELinitialize()
+    {
+        int i;
+        ELusetree = beachLine == BeachLine.TREE;
+        ELleftend = HEcreate(NONE, 0);
+        ELrightend = HEcreate(NONE, 0);
+        heLeft[ELleftend] = NONE;
+        heRight[ELleftend] = ELrightend;
+        heLeft[ELrightend] = ELleftend;
+        heRight[ELrightend] = NONE;
+        if (ELusetree)
+        {
+            ELseed = 0x2545F491;
+            ELroot = ELleftend;
+            heBLpriority[ELleftend] = ELnextpriority();
+            BLinsertafter(ELleftend, ELrightend);
+            return true;
+        }
+
+        ELhashsize = 2 * sqrt_nsites;
+        for (i = 0; i < ELhashsize; i += 1)
+        {
+            ELhash[i] = NONE;
+        }
+        ELhash[0] = ELleftend;
+        ELhash[ELhashsize - 1] = ELrightend;
+
+        return true;
+    }
+
+    private int leftreg(int he)
+    {
+        int e = heEdge[he];
+        if (e == NONE)
+        {
+            return (bottomsite);
+        }
+        return (hePm[he] == LE ? edgeReg0[e] : edgeReg1[e]);
+    }
+
+    private int rightreg(int he)
+    {
+        int e = heEdge[he];
+        if (e == NONE)
+        {
+            return (bottomsite);
+        }
+        return (hePm[he] == LE ? edgeReg1[e] : edgeReg0[e]);
+    }
+
+    private void ELinsert(int lb, int newHe)
+    {
+        heLeft[newHe] = lb;
+        heRight[newHe] = heRight[lb];
+        heLeft[heRight[lb]] = newHe;
+        heRight[lb] = newHe;
+        if (ELusetree)
+        {
+            BLinsertafter(lb, newHe);
+        }
+    }
+
+    private void ELdelete(int he)
+    {
+        heRight[heLeft[he]] = heRight[he];
+        heLeft[heRight[he]] = heLeft[he];
+        heDeleted[he] = true;
+        if (ELusetree)
+        {
+            BLremove(he);
+        }
+    }
+
+    /* Get entry from hash table, pruning any deleted nodes */
+    private int ELgethash(int b)
+    {
+        int he;
+
+        if (b < 0 || b >= ELhashsize)
+        {
+            return (NONE);
+        }
+        he = ELhash[b];
+        if (he == NONE || !heDeleted[he])
+        {
+            return (he);
+        }
+
+        /* Hash table points to deleted half edge. Patch as necessary. */
+        ELhash[b] = NONE;
+        return (NONE);
+    }
+
+    private int ELleftbnd(double px, double py)
+    {
+        int i, bucket;
+        int he;
+
+        if (ELusetree)
+        {
+            return BLleftbnd(px, py);
+        }
+
+        /* Use hash table to get close to desired halfedge */
+        bucket = (int) ((px - xmin) / deltax * ELhashsize);
+
+        if (bucket < 0)
+        {
+            bucket = 0;
+        }
+        if (bucket >= ELhashsize)
+        {
+            bucket = ELhashsize - 1;
+        }
+
+        he = ELgethash(bucket);
+        if (he == NONE)
+        {
+            for (i = 1; i < ELhashsize; i += 1)
+            {
+                if ((he = ELgethash(bucket - i)) != NONE)
+                {
+                    break;
+                }
+                if ((he = ELgethash(bucket + i)) != NONE)
+                {
+                    break;
+                }
+            }
+        }
+        /* Now search linear list of halfedges for the correct one */
+        if (he == ELleftend || (he != ELrightend && right_of(he, px, py)))
+        {
+            do
+            {
+                he = heRight[he];
+            } while (he != ELrightend && right_of(he, px, py));
+            he = heLeft[he];
+        } else
+        {
+            do
+            {
+                he = heLeft[he];
+            } while (he != ELleftend && !right_of(he, px, py));
+        }
+
+        /* Update hash table and reference counts */
+        if (bucket > 0 && bucket < ELhashsize - 1)
+        {
+            ELhash[bucket] = he;
+        }
+        return (he);
+    }
+
+    /*
+     * The treap of BeachLine.TREE, see Voronoi.BLleftbnd
+     */
+    private int ELnextpriority()
+    {
+        ELseed ^= ELseed << 13;
+        ELseed ^= ELseed >>> 17;
+        ELseed ^= ELseed << 5;
+        return ELseed;
+    }
+
+    private int BLleftbnd(double px, double py)
+    {
+        int he = ELroot;
+        int answer = ELleftend;
+        while (he != NONE)
+        {
+            if (he == ELleftend || (he != ELrightend && right_of(he, px, py)))
+            {
+                answer = he;
+                he = heBLright[he];
+            } else
+            {
+                he = heBLleft[he];
+            }
+        }
+        return (answer);
+    }
+
+    // Rotate he above its parent
+    private void BLrotateup(int he)
+    {
+        int parent = heBLparent[he];
+        int grand = heBLparent[parent];
+        if (heBLleft[parent] == he)
+        {
+            heBLleft[parent] = heBLright[he];
+            if (heBLright[he] != NONE)
+            {
+                heBLparent[heBLright[he]] = parent;
+            }
+            heBLright[he] = parent;
+        } else
+        {
+            heBLright[parent] = heBLleft[he];
+            if (heBLleft[he] != NONE)
+            {
+                heBLparent[heBLleft[he]] = parent;
+            }
+            heBLleft[he] = parent;
+        }
+        heBLparent[parent] = he;
+        heBLparent[he] = grand;
+        if (grand == NONE)
+        {
+            ELroot = he;
+        } else if (heBLleft[grand] == parent)
+        {
+            heBLleft[grand] = he;
+        } else
+        {
+            heBLright[grand] = he;
+        }
+    }
+
+    // Insert newHe as the successor of lb
+    private void BLinsertafter(int lb, int newHe)
+    {
+        heBLleft[newHe] = NONE;
+        heBLright[newHe] = NONE;
+        heBLpriority[newHe] = ELnextpriority();
+        if (heBLright[lb] == NONE)
+        {
+            heBLright[lb] = newHe;
+            heBLparent[newHe] = lb;
+        } else
+        {
+            int he = heBLright[lb];
+            while (heBLleft[he] != NONE)
+            {
+                he = heBLleft[he];
+            }
+            heBLleft[he] = newHe;
+            heBLparent[newHe] = he;
+        }
+        while (heBLparent[newHe] != NONE && heBLpriority[newHe] < heBLpriority[heBLparent[newHe]])
+        {
+            BLrotateup(newHe);
+        }
+    }
+
+    private void BLremove(int he)
+    {
+        // Rotate the node down until it is a leaf
+        while (heBLleft[he] != NONE || heBLright[he] != NONE)
+        {
+            int child;
+            if (heBLleft[he] == NONE)
+            {
+                child = heBLright[he];
+            } else if (heBLright[he] == NONE)
+            {
+                child = heBLleft[he];
+            } else
+            {
+                child = heBLpriority[heBLleft[he]] < heBLpriority[heBLright[he]] ? heBLleft[he] : heBLright[he];
+            }
+            BLrotateup(child);
+        }
+        int parent = heBLparent[he];
+        if (parent == NONE)
+        {
+            ELroot = NONE;
+        } else if (heBLleft[parent] == he)
+        {
+            heBLleft[parent] = NONE;
+        } else
+        {
+            heBLright[parent] = NONE;
+        }
+        heBLparent[he] = NONE;
+    }
+
+    private void clip_line(int e)
+    {
+        if (clipCount == clipOrder.length)
+        {
+            clipOrder = Arrays.copyOf(clipOrder, 2 * clipCount + 1);
+        }
+        clipOrder[clipCount++] = e;
+        if (!clipping)
+        {
+            return;
+        }
+        clip_line(e, borderMinX, borderMaxX, borderMinY, borderMaxY, windowClip, sink);
+    }
+
+    /*
+     * Only reads the diagram, so that several threads can clip it again at once. The window,
+     * if there is one, is clipped with the given clip, which belongs to the calling thread.
+     */
+    private void clip_line(int e, double pxmin, double pxmax, double pymin, double pymax, VoronoiMesh.Clip clip,
+            EdgeConsumer sink)
+    {
+        int s1, s2;
+        double x1 = 0, x2 = 0, y1 = 0, y2 = 0;
+        double a = edgeA[e], b = edgeB[e], c = edgeC[e];
+
+        x1 = siteX[edgeReg0[e]];
+        x2 = siteX[edgeReg1[e]];
+        y1 = siteY[edgeReg0[e]];
+        y2 = siteY[edgeReg1[e]];
+
+        // if the distance between the two points this line was created from is
+        // less than the minimal distance, then ignore it
+        if (((x2 - x1) * (x2 - x1)) + ((y2 - y1) * (y2 - y1)) < minDistanceBetweenSites * minDistanceBetweenSites)
+        {
+            return;
+        }
+        if (windowX != null)
+        {
+            if (clip.clip(this, e, windowX, windowY))
+            {
+                int v0 = clip.vertex[0], v1 = clip.vertex[1];
+                sink.accept(v0 >= 0 ? vertX[v0] : clip.x[0], v0 >= 0 ? vertY[v0] : clip.y[0],
+                        v1 >= 0 ? vertX[v1] : clip.x[1], v1 >= 0 ? vertY[v1] : clip.y[1],
+                        siteNbr[edgeReg0[e]], siteNbr[edgeReg1[e]]);
+            }
+            return;
+        }
+        if (a == 1.0 && b >= 0.0)
+        {
+            s1 = edgeEp1[e];
+            s2 = edgeEp0[e];
+        } else
+        {
+            s1 = edgeEp0[e];
+            s2 = edgeEp1[e];
+        }
+
+        if (a == 1.0)
+        {
+            y1 = pymin;
+            if (s1 != NONE && vertY[s1] > pymin)
+            {
+                y1 = vertY[s1];
+            }
+            if (y1 > pymax)
+            {
+                y1 = pymax;
+            }
+            x1 = c - b * y1;
+            y2 = pymax;
+            if (s2 != NONE && vertY[s2] < pymax)
+            {
+                y2 = vertY[s2];
+            }
+
+            if (y2 < pymin)
+            {
+                y2 = pymin;
+            }
+            x2 = c - b * y2;
+            if (((x1 > pxmax) & (x2 > pxmax)) | ((x1 < pxmin) & (x2 < pxmin)))
+            {
+                return;
+            }
+            if (x1 > pxmax)
+            {
+                x1 = pxmax;
+                y1 = (c - x1) / b;
+            }
+            if (x1 < pxmin)
+            {
+                x1 = pxmin;
+                y1 = (c - x1) / b;
+            }
+            if (x2 > pxmax)
+            {
+                x2 = pxmax;
+                y2 = (c - x2) / b;
+            }
+            if (x2 < pxmin)
+            {
+                x2 = pxmin;
+                y2 = (c - x2) / b;
+            }
+        } else
+        {
+            x1 = pxmin;
+            if (s1 != NONE && vertX[s1] > pxmin)
+            {
+                x1 = vertX[s1];
+            }
+            if (x1 > pxmax)
+            {
+                x1 = pxmax;
+            }
+            y1 = c - a * x1;
+            x2 = pxmax;
+            if (s2 != NONE && vertX[s2] < pxmax)
+            {
+                x2 = vertX[s2];
+            }
+            if (x2 < pxmin)
+            {
+                x2 = pxmin;
+            }
+            y2 = c - a * x2;
+            if (((y1 > pymax) & (y2 > pymax)) | ((y1 < pymin) & (y2 < pymin)))
+            {
+                return;
+            }
+            if (y1 > pymax)
+            {
+                y1 = pymax;
+                x1 = (c - y1) / a;
+            }
+            if (y1 < pymin)
+            {
+                y1 = pymin;
+                x1 = (c - y1) / a;
+            }
+            if (y2 > pymax)
+            {
+                y2 = pymax;
+                x2 = (c - y2) / a;
+            }
+            if (y2 < pymin)
+            {
+                y2 = pymin;
+                x2 = (c - y2) / a;
+            }
+        }
+
+        sink.accept(x1, y1, x2, y2, siteNbr[edgeReg0[e]], siteNbr[edgeReg1[e]]);
+    }
+
+    private void endpoint(int e, int lr, int s)
+    {
+        if (lr == LE)
+        {
+            edgeEp0[e] = s;
+            if (edgeEp1[e] == NONE)
+            {
+                return;
+            }
+        } else
+        {
+            edgeEp1[e] = s;
+            if (edgeEp0[e] == NONE)
+            {
+                return;
+            }
+        }
+        clip_line(e);
+    }
+
+    /* returns true if p is to right of halfedge el */
+    private boolean right_of(int el, double px, double py)
+    {
+        int e;
+        int topsite;
+        boolean right_of_site;
+        boolean above, fast;
+        double dxp, dyp, dxs, t1, t2, t3, yl;
+
+        e = heEdge[el];
+        topsite = edgeReg1[e];
+        double a = edgeA[e], b = edgeB[e], c = edgeC[e];
+        right_of_site = px > siteX[topsite];
+        if (right_of_site && hePm[el] == LE)
+        {
+            return (true);
+        }
+        if (!right_of_site && hePm[el] == RE)
+        {
+            return (false);
+        }
+
+        if (a == 1.0)
+        {
+            dyp = py - siteY[topsite];
+            dxp = px - siteX[topsite];
+            fast = false;
+            if ((!right_of_site & (b < 0.0)) | (right_of_site & (b >= 0.0)))
+            {
+                above = dyp >= b * dxp;
+                fast = above;
+            } else
+            {
+                above = px + py * b > c;
+                if (b < 0.0)
+                {
+                    above = !above;
+                }
+                if (!above)
+                {
+                    fast = true;
+                }
+            }
+            if (!fast)
+            {
+                dxs = siteX[topsite] - siteX[edgeReg0[e]];
+                above = b * (dxp * dxp - dyp * dyp) < dxs * dyp
+                        * (1.0 + 2.0 * dxp / dxs + b * b);
+                if (b < 0.0)
+                {
+                    above = !above;
+                }
+            }
+        } else /* b==1.0 */
+        {
+            yl = c - a * px;
+            t1 = py - yl;
+            t2 = px - siteX[topsite];
+            t3 = yl - siteY[topsite];
+            above = t1 * t1 > t2 * t2 + t3 * t3;
+        }
+        return (hePm[el] == LE ? above : !above);
+    }
+
+    private double dist(int v, int s)
+    {
+        // same formula as Point2D.distance, which is what Voronoi uses
+        double dx = vertX[v] - siteX[s];
+        double dy = vertY[v] - siteY[s];
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    // create a new vertex where the HalfEdges el1 and el2 intersect
+    private int intersect(int el1, int el2)
+    {
+        int e1, e2, e;
+        int el;
+        double d, xint, yint;
+        boolean right_of_site;
+
+        e1 = heEdge[el1];
+        e2 = heEdge[el2];
+        if (e1 == NONE || e2 == NONE)
+        {
+            return NONE;
+        }
+
+        // if the two edges bisect the same parent, return null
+        if (edgeReg1[e1] == edgeReg1[e2])
+        {
+            return NONE;
+        }
+
+        d = edgeA[e1] * edgeB[e2] - edgeB[e1] * edgeA[e2];
+        if (-1.0e-10 < d && d < 1.0e-10)
+        {
+            return NONE;
+        }
+
+        xint = (edgeC[e1] * edgeB[e2] - edgeC[e2] * edgeB[e1]) / d;
+        yint = (edgeC[e2] * edgeA[e1] - edgeC[e1] * edgeA[e2]) / d;
+
+        int top1 = edgeReg1[e1], top2 = edgeReg1[e2];
+        if ((siteY[top1] < siteY[top2])
+                || (siteY[top1] == siteY[top2] && siteX[top1] < siteX[top2]))
+        {
+            el = el1;
+            e = e1;
+        } else
+        {
+            el = el2;
+            e = e2;
+        }
+
+        right_of_site = xint >= siteX[edgeReg1[e]];
+        if ((right_of_site && hePm[el] == LE)
+                || (!right_of_site && hePm[el] == RE))
+        {
+            return NONE;
+        }
+
+        // create a new vertex at the point of intersection - this is a new vector
+        // event waiting to happen
+        return newvertex(xint, yint);
+    }
+
+    private void voronoi_bd()
+    {
+        int newsite, bot, top, temp, p;
+        int v;
+        int pm;
+        int lbnd, rbnd, llbnd, rrbnd, bisector;
+        int e;
+
+        PQinitialize();
+        ELinitialize();
+        siteidx = 0;
+        clipCount = 0;
+
+        bottomsite = nextone();
+        newsite = nextone();
+        while (true)
+        {
+            if (!PQempty())
+            {
+                PQ_min();
+            }
+
+            // Same comparison as in Voronoi.voronoi_bd (including comparing the x
+            // coordinate of the site with the y coordinate of the event) so that
+            // both implementations produce the same diagram.
+            if (newsite != NONE
+                    && (PQempty() || siteY[newsite] < PQminY || (siteY[newsite] == PQminY && siteX[newsite] < PQminY)))
+            {
+                /* new site is smallest -this is a site event */
+                lbnd = ELleftbnd(siteX[newsite], siteY[newsite]);
+                rbnd = heRight[lbnd];
+                bot = rightreg(lbnd);
+                e = bisect(bot, newsite);
+
+                bisector = HEcreate(e, LE);
+                ELinsert(lbnd, bisector);
+
+                if ((p = intersect(lbnd, bisector)) != NONE)
+                {
+                    PQdelete(lbnd);
+                    PQinsert(lbnd, p, dist(p, newsite));
+                }
+                lbnd = bisector;
+                bisector = HEcreate(e, RE);
+                ELinsert(lbnd, bisector);
+
+                if ((p = intersect(bisector, rbnd)) != NONE)
+                {
+                    PQinsert(bisector, p, dist(p, newsite));
+                }
+                newsite = nextone();
+            } else if (!PQempty())
+            /* intersection is smallest - this is a vector event */
+            {
+                lbnd = PQextractmin();
+                llbnd = heLeft[lbnd];
+                rbnd = heRight[lbnd];
+                rrbnd = heRight[rbnd];
+                bot = leftreg(lbnd);
+                top = rightreg(rbnd);
+
+                v = heVertex[lbnd];
+                makevertex(v);
+                maketriangle(bot, rightreg(lbnd), top);
+                endpoint(heEdge[lbnd], hePm[lbnd], v);
+                endpoint(heEdge[rbnd], hePm[rbnd], v);
+                ELdelete(lbnd);
+                PQdelete(rbnd);
+                ELdelete(rbnd);
+                pm = LE;
+
+                if (siteY[bot] > siteY[top])
+                {
+                    temp = bot;
+                    bot = top;
+                    top = temp;
+                    pm = RE;
+                }
+                e = bisect(bot, top);
+                bisector = HEcreate(e, pm);
+                ELinsert(llbnd, bisector);
+                endpoint(e, RE - pm, v);
+
+                if ((p = intersect(llbnd, bisector)) != NONE)
+                {
+                    PQdelete(llbnd);
+                    PQinsert(llbnd, p, dist(p, bot));
+                }
+
+                if ((p = intersect(bisector, rrbnd)) != NONE)
+                {
+                    PQinsert(bisector, p, dist(p, bot));
+                }
+            } else
+            {
+                break;
+            }
+        }
+
+        for (lbnd = heRight[ELleftend]; lbnd != ELrightend; lbnd = heRight[lbnd])
+        {
+            clip_line(heEdge[lbnd]);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package be.humphreys.simplevoronoi;
+
+/**
+ * The structures the sweep can use to find the arc of the beach line above a new site.
+ *
+ * @see Voronoi#setBeachLine(BeachLine)
+ * @see ArrayVoronoi#setBeachLine(BeachLine)
+ */
+public enum BeachLine
+{
+    /**
+     * The index of the original implementation: <code>2 * sqrt(n)</code> buckets over the
+     * x range of the sites pointing into the list of halfedges, followed by a linear walk
+     * along the list. Fast for evenly distributed sites, but the walk becomes O(n) per site
+     * if the sites are clustered, narrow or mostly collinear.
+     */
+    HASH,
+
+    /**
+     * A treap over the halfedges in beach line order, searched by the position of the
+     * breakpoints. Locating a site takes O(log n) expected time no matter how the
+     * sites are distributed. If a site is given twice, the edges of its copies may
+     * differ from those of {@link #HASH}, as the breakpoints of the copies are not ordered.
+     */
+    TREE;
+}
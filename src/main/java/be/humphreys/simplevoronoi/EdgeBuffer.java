@@ -0,0 +1,199 @@
+package be.humphreys.simplevoronoi;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The edges of a diagram in primitive arrays, one entry per edge in the order the sweep
+ * generated them. Compared to a list of {@link GraphEdge} this needs no object per edge,
+ * and reading the edges in order walks through contiguous memory.
+ *
+ * <p>The arrays are sized for {@link #expectedEdges(int)} of the sites up front and grow
+ * geometrically if a diagram has more edges. {@link #asList()} offers a {@link List} view
+ * for code that works on GraphEdges.
+ */
+public final class EdgeBuffer implements EdgeConsumer
+{
+    private double[] x1, y1, x2, y2;
+    private int[] site1, site2;
+    private int size;
+
+    public EdgeBuffer()
+    {
+        this(16);
+    }
+
+    /**
+     * @param capacity the amount of edges that fit without growing
+     */
+    public EdgeBuffer(int capacity)
+    {
+        x1 = new double[capacity];
+        y1 = new double[capacity];
+        x2 = new double[capacity];
+        y2 = new double[capacity];
+        site1 = new int[capacity];
+        site2 = new int[capacity];
+    }
+
+    /**
+     * A diagram of n sites has at most 3n - 6 edges, some of which the sweep reports twice.
+     *
+     * @param sites the amount of sites
+     * @return the capacity that holds the edges of almost all diagrams of that size
+     */
+    public static int expectedEdges(int sites)
+    {
+        return 3 * sites + 1;
+    }
+
+    /**
+     * Make sure that the given amount of edges fits without growing.
+     */
+    public void ensureCapacity(int capacity)
+    {
+        if (x1.length < capacity)
+        {
+            grow(capacity);
+        }
+    }
+
+    private void grow(int capacity)
+    {
+        x1 = Arrays.copyOf(x1, capacity);
+        y1 = Arrays.copyOf(y1, capacity);
+        x2 = Arrays.copyOf(x2, capacity);
+        y2 = Arrays.copyOf(y2, capacity);
+        site1 = Arrays.copyOf(site1, capacity);
+        site2 = Arrays.copyOf(site2, capacity);
+    }
+
+    /**
+     * Append an edge.
+     */
+    public void add(double x1, double y1, double x2, double y2, int site1, int site2)
+    {
+        if (size == this.x1.length)
+        {
+            grow(Math.max(16, 2 * size));
+        }
+        this.x1[size] = x1;
+        this.y1[size] = y1;
+        this.x2[size] = x2;
+        this.y2[size] = y2;
+        this.site1[size] = site1;
+        this.site2[size] = site2;
+        size++;
+    }
+
+    /**
+     * Same as {@link #add(double, double, double, double, int, int)}, so that a buffer can
+     * collect the edges of a sweep.
+     */
+    @Override
+    public void accept(double x1, double y1, double x2, double y2, int site1, int site2)
+    {
+        add(x1, y1, x2, y2, site1, site2);
+    }
+
+    /**
+     * Remove all edges, but keep the arrays.
+     */
+    public void clear()
+    {
+        size = 0;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public double getX1(int edge)
+    {
+        return x1[edge];
+    }
+
+    public double getY1(int edge)
+    {
+        return y1[edge];
+    }
+
+    public double getX2(int edge)
+    {
+        return x2[edge];
+    }
+
+    public double getY2(int edge)
+    {
+        return y2[edge];
+    }
+
+    /**
+     * @param edge the index of the edge
+     * @return the index of the input site on the one side of the edge
+     */
+    public int getSite1(int edge)
+    {
+        return site1[edge];
+    }
+
+    /**
+     * @param edge the index of the edge
+     * @return the index of the input site on the other side of the edge
+     */
+    public int getSite2(int edge)
+    {
+        return site2[edge];
+    }
+
+    /**
+     * Copy the edge into a GraphEdge.
+     *
+     * @param edge the index of the edge
+     * @param e receives the values of the edge
+     * @return e
+     */
+    public GraphEdge get(int edge, GraphEdge e)
+    {
+        e.x1 = x1[edge];
+        e.y1 = y1[edge];
+        e.x2 = x2[edge];
+        e.y2 = y2[edge];
+        e.site1 = site1[edge];
+        e.site2 = site2[edge];
+        return e;
+    }
+
+    /**
+     * A read only view of the edges. Every call of {@link List#get(int)} creates a new
+     * GraphEdge. The view follows later changes of the buffer.
+     *
+     * @return the edges as a list
+     */
+    public List<GraphEdge> asList()
+    {
+        return new GraphEdgeList();
+    }
+
+    private class GraphEdgeList extends AbstractList<GraphEdge> implements RandomAccess
+    {
+        @Override
+        public GraphEdge get(int index)
+        {
+            if (index < 0 || index >= size)
+            {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return EdgeBuffer.this.get(index, new GraphEdge());
+        }
+
+        @Override
+        public int size()
+        {
+            return size;
+        }
+    }
+}
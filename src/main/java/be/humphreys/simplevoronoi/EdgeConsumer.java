@@ -0,0 +1,22 @@
+package be.humphreys.simplevoronoi;
+
+/**
+ * Receives the edges of a diagram one by one, as the sweep clips them to the bounding box.
+ * The values are the ones a {@link GraphEdge} of the same edge would hold.
+ *
+ * @see Voronoi#generateVoronoi(double[], double[], double, double, double, double, EdgeConsumer)
+ * @see ArrayVoronoi#generateVoronoi(double[], double[], double, double, double, double, EdgeConsumer)
+ */
+@FunctionalInterface
+public interface EdgeConsumer
+{
+    /**
+     * @param x1 the x coordinate of the one end of the edge
+     * @param y1 the y coordinate of the one end of the edge
+     * @param x2 the x coordinate of the other end of the edge
+     * @param y2 the y coordinate of the other end of the edge
+     * @param site1 the index of the input site on the one side of the edge
+     * @param site2 the index of the input site on the other side of the edge
+     */
+    void accept(double x1, double y1, double x2, double y2, int site1, int site2);
+}
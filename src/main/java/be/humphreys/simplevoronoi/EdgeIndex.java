@@ -0,0 +1,317 @@
+package be.humphreys.simplevoronoi;
+
+import java.awt.geom.Line2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
+
+/**
+ * A uniform grid over the edges of a diagram, for finding the edges in a view or the edge
+ * nearest to the mouse without looking at all edges. Every grid cell lists the edges whose
+ * bounding box overlaps it, and with about two edges per cell a query looks at the edges
+ * near its answer only.
+ *
+ * <p>The index is built in bulk: the cell lists are stored one after the other in a single
+ * array, and the rows of the grid are filled in parallel. The edges are referred to by their
+ * index in the list or buffer the index was built from.
+ *
+ * <p>An index does not change after it is built and can be used by any amount of threads.
+ */
+public final class EdgeIndex
+{
+    private final double[] x1, y1, x2, y2;
+    private final double minX, minY, cellWidth, cellHeight;
+    private final int columns, rows;
+    // The edges of cell c are cellEdges[cellStart[c]] to cellEdges[cellStart[c + 1] - 1]
+    private final int[] cellStart;
+    private final int[] cellEdges;
+
+    /**
+     * Build on the common pool.
+     *
+     * @see #EdgeIndex(EdgeBuffer, ForkJoinPool)
+     */
+    public EdgeIndex(EdgeBuffer edges)
+    {
+        this(edges, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param edges the edges of the diagram
+     * @param pool fills the rows of the grid
+     */
+    public EdgeIndex(EdgeBuffer edges, ForkJoinPool pool)
+    {
+        this(copy(edges), pool);
+    }
+
+    /**
+     * Build on the common pool.
+     *
+     * @param edges the edges of the diagram
+     */
+    public EdgeIndex(List<GraphEdge> edges)
+    {
+        this(copy(edges), ForkJoinPool.commonPool());
+    }
+
+    private EdgeIndex(double[][] coordinates, ForkJoinPool pool)
+    {
+        x1 = coordinates[0];
+        y1 = coordinates[1];
+        x2 = coordinates[2];
+        y2 = coordinates[3];
+        int count = x1.length;
+        double x0 = Double.POSITIVE_INFINITY, y0 = x0, xm = Double.NEGATIVE_INFINITY, ym = xm;
+        for (int i = 0; i < count; i++)
+        {
+            x0 = Math.min(x0, Math.min(x1[i], x2[i]));
+            xm = Math.max(xm, Math.max(x1[i], x2[i]));
+            y0 = Math.min(y0, Math.min(y1[i], y2[i]));
+            ym = Math.max(ym, Math.max(y1[i], y2[i]));
+        }
+        if (count == 0)
+        {
+            x0 = y0 = xm = ym = 0;
+        }
+        double w = Math.max(xm - x0, Double.MIN_NORMAL);
+        double h = Math.max(ym - y0, Double.MIN_NORMAL);
+        // About two edges per cell, with cells as square as the extent allows
+        double cells = Math.max(1.0, count / 2.0);
+        columns = (int) Math.max(1, Math.min(cells, Math.round(Math.sqrt(cells * w / h))));
+        rows = (int) Math.max(1, Math.min(cells, Math.round(cells / columns)));
+        minX = x0;
+        minY = y0;
+        cellWidth = w / columns;
+        cellHeight = h / rows;
+
+        // The range of rows of every edge, then bands of rows count and fill their cells
+        int[] rowRange = new int[2 * count];
+        for (int i = 0; i < count; i++)
+        {
+            rowRange[2 * i] = row(Math.min(y1[i], y2[i]));
+            rowRange[2 * i + 1] = row(Math.max(y1[i], y2[i]));
+        }
+        cellStart = new int[columns * rows + 1];
+        forBands(pool, (lo, hi) ->
+        {
+            for (int i = 0; i < count; i++)
+            {
+                int r0 = Math.max(lo, rowRange[2 * i]), r1 = Math.min(hi - 1, rowRange[2 * i + 1]);
+                int c0 = column(Math.min(x1[i], x2[i])), c1 = column(Math.max(x1[i], x2[i]));
+                for (int r = r0; r <= r1; r++)
+                {
+                    for (int c = c0; c <= c1; c++)
+                    {
+                        cellStart[r * columns + c + 1]++;
+                    }
+                }
+            }
+        });
+        for (int c = 0; c < columns * rows; c++)
+        {
+            cellStart[c + 1] += cellStart[c];
+        }
+        cellEdges = new int[cellStart[columns * rows]];
+        forBands(pool, (lo, hi) ->
+        {
+            int[] fill = Arrays.copyOfRange(cellStart, lo * columns, hi * columns);
+            for (int i = 0; i < count; i++)
+            {
+                int r0 = Math.max(lo, rowRange[2 * i]), r1 = Math.min(hi - 1, rowRange[2 * i + 1]);
+                int c0 = column(Math.min(x1[i], x2[i])), c1 = column(Math.max(x1[i], x2[i]));
+                for (int r = r0; r <= r1; r++)
+                {
+                    for (int c = c0; c <= c1; c++)
+                    {
+                        cellEdges[fill[(r - lo) * columns + c]++] = i;
+                    }
+                }
+            }
+        });
+    }
+
+    private static double[][] copy(EdgeBuffer edges)
+    {
+        int count = edges.size();
+        double[][] coordinates = new double[4][count];
+        for (int i = 0; i < count; i++)
+        {
+            coordinates[0][i] = edges.getX1(i);
+            coordinates[1][i] = edges.getY1(i);
+            coordinates[2][i] = edges.getX2(i);
+            coordinates[3][i] = edges.getY2(i);
+        }
+        return coordinates;
+    }
+
+    private static double[][] copy(List<GraphEdge> edges)
+    {
+        double[][] coordinates = new double[4][edges.size()];
+        int i = 0;
+        for (GraphEdge e : edges)
+        {
+            coordinates[0][i] = e.x1;
+            coordinates[1][i] = e.y1;
+            coordinates[2][i] = e.x2;
+            coordinates[3][i++] = e.y2;
+        }
+        return coordinates;
+    }
+
+    public int size()
+    {
+        return x1.length;
+    }
+
+    /**
+     * Find the edges that intersect a rectangle.
+     *
+     * @param area the rectangle, for example the view
+     * @param action receives the index of every edge once, in no particular order
+     */
+    public void query(Rectangle2D area, IntConsumer action)
+    {
+        if (area.isEmpty() || size() == 0)
+        {
+            return;
+        }
+        int qc0 = column(area.getMinX()), qc1 = column(area.getMaxX());
+        int qr0 = row(area.getMinY()), qr1 = row(area.getMaxY());
+        for (int r = qr0; r <= qr1; r++)
+        {
+            for (int c = qc0; c <= qc1; c++)
+            {
+                int cell = r * columns + c;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++)
+                {
+                    int i = cellEdges[k];
+                    // An edge in several cells is reported by the first of them the query covers
+                    int c0 = Math.max(qc0, column(Math.min(x1[i], x2[i])));
+                    int r0 = Math.max(qr0, row(Math.min(y1[i], y2[i])));
+                    if (c == c0 && r == r0 && area.intersectsLine(x1[i], y1[i], x2[i], y2[i]))
+                    {
+                        action.accept(i);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param area the rectangle, for example the view
+     * @return the indices of the edges that intersect the rectangle, in increasing order
+     */
+    public int[] query(Rectangle2D area)
+    {
+        int[][] found = { new int[16] };
+        int[] count = { 0 };
+        query(area, i ->
+        {
+            if (count[0] == found[0].length)
+            {
+                found[0] = Arrays.copyOf(found[0], 2 * count[0]);
+            }
+            found[0][count[0]++] = i;
+        });
+        int[] result = Arrays.copyOf(found[0], count[0]);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * @param x the X value of the point
+     * @param y the Y value of the point
+     * @return the index of the edge nearest to the point, -1 if there are no edges
+     */
+    public int nearest(double x, double y)
+    {
+        return nearest(x, y, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Find the nearest edge within a distance, for example for hovering with the mouse. The
+     * cells are searched in rings around the point until no closer edge can be found.
+     *
+     * @param x the X value of the point
+     * @param y the Y value of the point
+     * @param maxDistance the largest distance of the edge
+     * @return the index of the edge nearest to the point, -1 if there is none within the distance
+     */
+    public int nearest(double x, double y, double maxDistance)
+    {
+        int best = -1;
+        double bestDistance = maxDistance * maxDistance;
+        int cx = column(x), cy = row(y);
+        double cell = Math.min(cellWidth, cellHeight);
+        int rings = Math.max(Math.max(cx, columns - 1 - cx), Math.max(cy, rows - 1 - cy));
+        for (int k = 0; k <= rings; k++)
+        {
+            // The cells of ring k are at least k - 1 cells away
+            double bound = (k - 1) * cell;
+            if (k > 1 && bound * bound > bestDistance)
+            {
+                break;
+            }
+            for (int r = Math.max(0, cy - k); r <= Math.min(rows - 1, cy + k); r++)
+            {
+                // The first and last row of the ring are full, the others have two cells
+                int step = r == cy - k || r == cy + k ? 1 : 2 * k;
+                for (int c = cx - k; c <= cx + k; c += step)
+                {
+                    if (c < 0 || c >= columns)
+                    {
+                        continue;
+                    }
+                    for (int n = cellStart[r * columns + c]; n < cellStart[r * columns + c + 1]; n++)
+                    {
+                        int i = cellEdges[n];
+                        double d = Line2D.ptSegDistSq(x1[i], y1[i], x2[i], y2[i], x, y);
+                        if (d < bestDistance || (d == bestDistance && (best < 0 || i < best)))
+                        {
+                            bestDistance = d;
+                            best = i;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private int column(double x)
+    {
+        return (int) Math.max(0, Math.min(columns - 1, Math.floor((x - minX) / cellWidth)));
+    }
+
+    private int row(double y)
+    {
+        return (int) Math.max(0, Math.min(rows - 1, Math.floor((y - minY) / cellHeight)));
+    }
+
+    private interface Band
+    {
+        void run(int lo, int hi);
+    }
+
+    // Each band only writes the cells of its own rows
+    private void forBands(ForkJoinPool pool, Band band)
+    {
+        int count = Math.max(1, Math.min(rows, Math.min(x1.length / 4096, 4 * pool.getParallelism())));
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            int lo = (int) ((long) rows * i / count);
+            int hi = (int) ((long) rows * (i + 1) / count);
+            tasks.add(pool.submit(() -> band.run(lo, hi)));
+        }
+        for (ForkJoinTask<?> task : tasks)
+        {
+            task.join();
+        }
+    }
+}
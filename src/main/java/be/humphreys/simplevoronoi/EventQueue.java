@@ -0,0 +1,24 @@
+package be.humphreys.simplevoronoi;
+
+/**
+ * The implementations of the vertex event queue the sweep can use.
+ *
+ * @see Voronoi#setEventQueue(EventQueue)
+ * @see ArrayVoronoi#setEventQueue(EventQueue)
+ */
+public enum EventQueue
+{
+    /**
+     * The queue of the original implementation: <code>4 * sqrt(n)</code> buckets over the
+     * y range of the sites, each holding a sorted linked list. Fast for evenly distributed
+     * sites, but the buckets degenerate into long lists if the sites are clustered.
+     */
+    BUCKET,
+
+    /**
+     * An indexed 4-ary heap. Insertion, deletion and extraction are O(log n) no matter how
+     * the sites are distributed. Events are processed in exactly the same order as with
+     * {@link #BUCKET}, so both queues produce the same diagram.
+     */
+    HEAP;
+}
@@ -33,10 +33,15 @@ public class Halfedge
     Halfedge ELleft, ELright;
     Edge ELedge;
     boolean deleted;
+    int ELrefcnt; // Number of pointers from the ELhash table to this halfedge
+    Halfedge BLleft, BLright, BLparent; // Treap of BeachLine.TREE
+    int BLpriority;
     int ELpm;
     Site vertex;
     double ystar;
     Halfedge PQnext;
+    int PQindex; // Position in the heap of EventQueue.HEAP
+    int PQseq; // Insertion order, to break ties in EventQueue.HEAP
 
     public Halfedge()
     {
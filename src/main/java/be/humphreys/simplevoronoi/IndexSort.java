@@ -0,0 +1,309 @@
+package be.humphreys.simplevoronoi;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Sorts points by (y, x) - or any other pair of double keys - without boxing them.
+ * The result is a permutation: <code>order[0]</code> is the index of the smallest point.
+ * The sort is stable, so equal points keep their input order, exactly like
+ * <code>Collections.sort</code> with a comparator on the same keys.
+ *
+ * <p>The keys are converted to order preserving longs and sorted with a LSD radix sort
+ * (11 bits per pass, passes where all keys share the same digit are skipped). Above
+ * {@link #getParallelThreshold()} elements the histograms and the scatter of each pass
+ * are computed in parallel on the common fork join pool. Small inputs are merge sorted.
+ *
+ * <p>An instance keeps its scratch buffers between calls, so it should be reused if many
+ * sorts are done. Instances are not thread safe.
+ */
+public final class IndexSort
+{
+    /**
+     * Default amount of elements above which the sort runs in parallel.
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 17;
+
+    private static final int BITS = 11;
+    private static final int RADIX = 1 << BITS;
+    private static final int MASK = RADIX - 1;
+    private static final int MERGE_THRESHOLD = 64;
+    private static final int MIN_CHUNK = 1 << 14;
+
+    private int parallelThreshold = PARALLEL_THRESHOLD;
+    private int[] orderBuffer = new int[0];
+    private long[] keys = new long[0];
+    private long[] keyBuffer = new long[0];
+    private int[][] histograms = new int[0][];
+
+    /**
+     * Sort the indices of the given points.
+     *
+     * @param primary the main key of each point, usually its y coordinate
+     * @param secondary the key that decides between equal primary keys, usually the x coordinate. May be null.
+     * @param n the amount of points to sort
+     * @return a new array holding the indices 0 to n-1 in sorted order
+     */
+    public static int[] sort(double[] primary, double[] secondary, int n)
+    {
+        int[] order = new int[n];
+        new IndexSort().sort(primary, secondary, n, order);
+        return order;
+    }
+
+    /**
+     * Sort the indices of the given points into the given array.
+     *
+     * @param primary the main key of each point, usually its y coordinate
+     * @param secondary the key that decides between equal primary keys, usually the x coordinate. May be null.
+     * @param n the amount of points to sort
+     * @param order receives the indices 0 to n-1 in sorted order, must hold at least n elements
+     */
+    public void sort(double[] primary, double[] secondary, int n, int[] order)
+    {
+        if (primary.length < n || (secondary != null && secondary.length < n) || order.length < n)
+        {
+            throw new IllegalArgumentException("Arrays are shorter than " + n);
+        }
+        for (int i = 0; i < n; i++)
+        {
+            order[i] = i;
+        }
+        if (orderBuffer.length < n)
+        {
+            orderBuffer = new int[n];
+        }
+        if (n < MERGE_THRESHOLD)
+        {
+            mergeSort(primary, secondary, order, orderBuffer, 0, n);
+            return;
+        }
+        if (keys.length < n)
+        {
+            keys = new long[n];
+            keyBuffer = new long[n];
+        }
+        int chunks = 1;
+        if (n >= parallelThreshold)
+        {
+            chunks = Math.max(1, Math.min(4 * Runtime.getRuntime().availableProcessors(), n / MIN_CHUNK));
+        }
+        if (histograms.length < chunks)
+        {
+            histograms = new int[chunks][RADIX];
+        }
+
+        // LSD: sort by the secondary key first, then stable by the primary key
+        int[] src = order;
+        int[] dst = orderBuffer;
+        if (secondary != null)
+        {
+            for (int i = 0; i < n; i++)
+            {
+                keys[i] = encode(secondary[i]);
+            }
+            if (radixSort(src, dst, n, chunks))
+            {
+                int[] tmp = src;
+                src = dst;
+                dst = tmp;
+            }
+        }
+        for (int i = 0; i < n; i++)
+        {
+            keys[i] = encode(primary[src[i]]);
+        }
+        if (radixSort(src, dst, n, chunks))
+        {
+            src = dst;
+        }
+        if (src != order)
+        {
+            System.arraycopy(src, 0, order, 0, n);
+        }
+    }
+
+    public int getParallelThreshold()
+    {
+        return parallelThreshold;
+    }
+
+    /**
+     * @param parallelThreshold the amount of elements above which the sort runs in parallel
+     */
+    public void setParallelThreshold(int parallelThreshold)
+    {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Convert a double into a long whose unsigned order is the order of the doubles.
+     * -0.0 and 0.0 are equal, as they are for the comparison operators.
+     */
+    static long encode(double value)
+    {
+        long bits = Double.doubleToLongBits(value + 0.0);
+        // Negative values: flip all bits, positive values: flip the sign bit
+        return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+    }
+
+    /*
+     * Radix sort the first n elements of src by keys. Returns true if the result is in dst,
+     * false if it is (still) in src. keys are kept aligned with the order arrays.
+     */
+    private boolean radixSort(int[] src, int[] dst, int n, int chunks)
+    {
+        boolean swapped = false;
+        long[] srcKeys = keys;
+        long[] dstKeys = keyBuffer;
+        for (int shift = 0; shift < 64; shift += BITS)
+        {
+            if (pass(src, srcKeys, dst, dstKeys, n, shift, chunks))
+            {
+                int[] tmp = src;
+                src = dst;
+                dst = tmp;
+                long[] tmpKeys = srcKeys;
+                srcKeys = dstKeys;
+                dstKeys = tmpKeys;
+                swapped = !swapped;
+            }
+        }
+        keys = srcKeys;
+        keyBuffer = dstKeys;
+        return swapped;
+    }
+
+    // One counting sort pass. Returns false if the pass was skipped as all digits are equal.
+    private boolean pass(int[] src, long[] srcKeys, int[] dst, long[] dstKeys, int n, int shift, int chunks)
+    {
+        int[][] hist = histograms;
+        int chunkSize = (n + chunks - 1) / chunks;
+        if (chunks == 1)
+        {
+            histogram(srcKeys, 0, n, shift, hist[0]);
+        } else
+        {
+            IntStream.range(0, chunks).parallel().forEach(c -> histogram(srcKeys,
+                    c * chunkSize, Math.min(n, (c + 1) * chunkSize), shift, hist[c]));
+        }
+
+        // Turn the counts into the start offset of every (digit, chunk)
+        int total = 0;
+        for (int d = 0; d < RADIX; d++)
+        {
+            int count = 0;
+            for (int c = 0; c < chunks; c++)
+            {
+                count += hist[c][d];
+            }
+            if (count == n)
+            {
+                return false;
+            }
+            for (int c = 0; c < chunks; c++)
+            {
+                int tmp = hist[c][d];
+                hist[c][d] = total;
+                total += tmp;
+            }
+        }
+
+        if (chunks == 1)
+        {
+            scatter(src, srcKeys, dst, dstKeys, 0, n, shift, hist[0]);
+        } else
+        {
+            IntStream.range(0, chunks).parallel().forEach(c -> scatter(src, srcKeys, dst, dstKeys,
+                    c * chunkSize, Math.min(n, (c + 1) * chunkSize), shift, hist[c]));
+        }
+        return true;
+    }
+
+    private static void histogram(long[] keys, int from, int to, int shift, int[] hist)
+    {
+        Arrays.fill(hist, 0);
+        for (int i = from; i < to; i++)
+        {
+            hist[(int) (keys[i] >>> shift) & MASK]++;
+        }
+    }
+
+    private static void scatter(int[] src, long[] srcKeys, int[] dst, long[] dstKeys,
+            int from, int to, int shift, int[] offsets)
+    {
+        for (int i = from; i < to; i++)
+        {
+            long key = srcKeys[i];
+            int pos = offsets[(int) (key >>> shift) & MASK]++;
+            dst[pos] = src[i];
+            dstKeys[pos] = key;
+        }
+    }
+
+    private static int compare(double[] primary, double[] secondary, int p1, int p2)
+    {
+        if (primary[p1] < primary[p2])
+        {
+            return (-1);
+        }
+        if (primary[p1] > primary[p2])
+        {
+            return (1);
+        }
+        if (secondary == null)
+        {
+            return (0);
+        }
+        if (secondary[p1] < secondary[p2])
+        {
+            return (-1);
+        }
+        if (secondary[p1] > secondary[p2])
+        {
+            return (1);
+        }
+        return (0);
+    }
+
+    // Stable merge sort of order[from, to), used for small inputs
+    private static void mergeSort(double[] primary, double[] secondary, int[] order, int[] buffer, int from, int to)
+    {
+        if (to - from < 8)
+        {
+            for (int i = from + 1; i < to; i++)
+            {
+                int p = order[i];
+                int j = i - 1;
+                while (j >= from && compare(primary, secondary, order[j], p) > 0)
+                {
+                    order[j + 1] = order[j];
+                    j--;
+                }
+                order[j + 1] = p;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(primary, secondary, order, buffer, from, mid);
+        mergeSort(primary, secondary, order, buffer, mid, to);
+        if (compare(primary, secondary, order[mid - 1], order[mid]) <= 0)
+        {
+            return;
+        }
+        System.arraycopy(order, from, buffer, from, to - from);
+        int i = from, j = mid, k = from;
+        while (i < mid && j < to)
+        {
+            order[k++] = compare(primary, secondary, buffer[j], buffer[i]) < 0 ? buffer[j++] : buffer[i++];
+        }
+        while (i < mid)
+        {
+            order[k++] = buffer[i++];
+        }
+        while (j < to)
+        {
+            order[k++] = buffer[j++];
+        }
+    }
+}
@@ -0,0 +1,659 @@
+package be.humphreys.simplevoronoi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Computes the same edges as {@link Voronoi#generateVoronoi(double[], double[], double, double, double, double)}
+ * on several threads. The sites are sorted by x and split into vertical strips with the same
+ * amount of sites. The diagram of every strip is computed by its own {@link ArrayVoronoi} on a
+ * worker of a {@link ForkJoinPool}, together with the sites in a halo to the left and right of
+ * the strip and the sites on or close to the convex hull of all sites.
+ *
+ * <p>A strip reports the edges whose leftmost site belongs to it. Before it does so it checks
+ * that the cells of its sites are the cells of the complete diagram: no site that was left out
+ * may be inside the circle around a vertex of these cells, or beyond the bisector of a cell that
+ * goes to infinity. If the check fails, the strip is computed again with the sites it found,
+ * or with a wider halo if there are too many of them. As the vertices are computed from the
+ * same bisectors as in the serial sweep, the edges of the strips are exactly (bit for bit)
+ * the edges of the serial sweep.
+ *
+ * <p>The returned list holds the same edges as the list of the serial implementation, but
+ * in a different order: the edges of the leftmost strip come first, and the edges within a
+ * strip are in the order of its sweep.
+ *
+ * <p>Inputs with less than {@link #getParallelThreshold()} sites, and inputs with a site that
+ * is given twice, are computed by a single {@link ArrayVoronoi} on the calling thread.
+ * Instances are not thread safe.
+ */
+public class ParallelVoronoi
+{
+    /**
+     * Default amount of sites above which the diagram is computed in strips.
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 15;
+
+    // Strips with less sites spend most of their time on the halo
+    private static final int MIN_STRIP_SITES = 1 << 12;
+    // Amount of sites (by rank) in a leaf of the tree of bounds
+    private static final int BLOCK = 32;
+
+    private final double minDistanceBetweenSites;
+    private final ForkJoinPool pool;
+    private int parallelThreshold = PARALLEL_THRESHOLD;
+    private final IndexSort sorter = new IndexSort();
+    private ArrayVoronoi serial;
+    private Strip[] strips = new Strip[0];
+
+    // Shared, read-only state of the current call. Sites are referred to by their rank in x order.
+    private double[] xValues, yValues;
+    private int[] order = new int[0];
+    private int n;
+    private double minX, maxX, minY, maxY;
+    private double halo;
+    private double tolerance;
+
+    // Sites on or near the convex hull, which are part of every strip
+    private boolean[] isOuter = new boolean[0];
+    private int[] outer = new int[0];
+    private int outerCount;
+
+    // Segment tree over blocks of ranks: the y range of the sites in each node
+    private int blocks;
+    private double[] boundMinY = new double[0];
+    private double[] boundMaxY = new double[0];
+
+    /**
+     * Create an instance which runs on the common pool.
+     *
+     * @param minDistanceBetweenSites edges between sites closer than this are dropped
+     */
+    public ParallelVoronoi(double minDistanceBetweenSites)
+    {
+        this(minDistanceBetweenSites, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param minDistanceBetweenSites edges between sites closer than this are dropped
+     * @param pool the pool that computes the strips, its parallelism is the amount of strips
+     */
+    public ParallelVoronoi(double minDistanceBetweenSites, ForkJoinPool pool)
+    {
+        if (pool == null)
+        {
+            throw new NullPointerException("pool");
+        }
+        this.minDistanceBetweenSites = minDistanceBetweenSites;
+        this.pool = pool;
+    }
+
+    /**
+     *
+     * @param xValuesIn Array of X values for each site.
+     * @param yValuesIn Array of Y values for each site. Must be identical length to yValuesIn
+     * @param minX The minimum X of the bounding box around the voronoi
+     * @param maxX The maximum X of the bounding box around the voronoi
+     * @param minY The minimum Y of the bounding box around the voronoi
+     * @param maxY The maximum Y of the bounding box around the voronoi
+     * @return The generated voronoi edges
+     */
+    public List<GraphEdge> generateVoronoi(double[] xValuesIn, double[] yValuesIn,
+            double minX, double maxX, double minY, double maxY)
+    {
+        if (xValuesIn.length != yValuesIn.length)
+        {
+            throw new IllegalArgumentException("xValuesIn and yValuesIn differ in length: "
+                    + xValuesIn.length + " vs. " + yValuesIn.length);
+        }
+        n = xValuesIn.length;
+        int count = Math.min(pool.getParallelism(), n / MIN_STRIP_SITES);
+        if (n < parallelThreshold || count < 2)
+        {
+            return generateSerial(xValuesIn, yValuesIn, minX, maxX, minY, maxY);
+        }
+
+        this.minX = minX;
+        this.maxX = maxX;
+        this.minY = minY;
+        this.maxY = maxY;
+        xValues = xValuesIn;
+        yValues = yValuesIn;
+        if (order.length < n)
+        {
+            order = new int[n];
+            isOuter = new boolean[n];
+            outer = new int[n + 1];
+        }
+        sorter.sort(xValuesIn, yValuesIn, n, order);
+        double scale = 1.0;
+        for (int i = 0; i < n; i++)
+        {
+            scale = Math.max(scale, Math.max(Math.abs(xValuesIn[i]), Math.abs(yValuesIn[i])));
+            if (i > 0 && x(i) == x(i - 1) && y(i) == y(i - 1))
+            {
+                // Where the sweep puts the edges of a site that is given twice depends on
+                // the state of its beach line, which a strip cannot reproduce
+                xValues = yValues = null;
+                return generateSerial(xValuesIn, yValuesIn, minX, maxX, minY, maxY);
+            }
+        }
+        tolerance = 1.0e-12 * scale;
+        buildBounds();
+        double spacing = meanSpacing();
+        findOuterSites(spacing);
+        halo = 4.0 * spacing;
+
+        if (strips.length != count)
+        {
+            strips = new Strip[count];
+            for (int i = 0; i < count; i++)
+            {
+                strips[i] = new Strip();
+            }
+        }
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            Strip strip = strips[i];
+            strip.lo = (int) ((long) n * i / count);
+            strip.hi = (int) ((long) n * (i + 1) / count);
+            tasks.add(pool.submit(strip::compute));
+        }
+        int total = 0;
+        for (int i = 0; i < count; i++)
+        {
+            tasks.get(i).join();
+            total += strips[i].edges.size();
+        }
+
+        List<GraphEdge> edges = new ArrayList<>(total);
+        for (Strip strip : strips)
+        {
+            edges.addAll(strip.edges);
+            strip.edges = null;
+        }
+        xValues = yValues = null;
+        return edges;
+    }
+
+    private List<GraphEdge> generateSerial(double[] xValuesIn, double[] yValuesIn,
+            double minX, double maxX, double minY, double maxY)
+    {
+        if (serial == null)
+        {
+            serial = new ArrayVoronoi(minDistanceBetweenSites);
+        }
+        serial.generateVoronoi(xValuesIn, yValuesIn, minX, maxX, minY, maxY);
+        return serial.getGraphEdges();
+    }
+
+    public int getParallelThreshold()
+    {
+        return parallelThreshold;
+    }
+
+    /**
+     * @param parallelThreshold the amount of sites above which the diagram is computed in strips
+     */
+    public void setParallelThreshold(int parallelThreshold)
+    {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    private double x(int r)
+    {
+        return xValues[order[r]];
+    }
+
+    private double y(int r)
+    {
+        return yValues[order[r]];
+    }
+
+    /*
+     * The sites on the convex hull and the sites closer than band to it. Their cells reach far
+     * out, so that they are part of every strip. The hull is Andrew's monotone chain over the
+     * sites in x order. Collinear sites on the hull are kept, they have unbounded cells as well.
+     */
+    private void findOuterSites(double band)
+    {
+        Arrays.fill(isOuter, 0, n, false);
+        for (int pass = 0; pass < 2; pass++)
+        {
+            // The lower chain from left to right, then the upper one from right to left
+            int size = 0;
+            for (int j = 0; j < n; j++)
+            {
+                int r = pass == 0 ? j : n - 1 - j;
+                while (size >= 2 && cross(outer[size - 2], outer[size - 1], r) < 0)
+                {
+                    size--;
+                }
+                outer[size++] = r;
+            }
+            for (int j = 0, i = 0; j < n; j++)
+            {
+                int r = pass == 0 ? j : n - 1 - j;
+                while (i + 2 < size && (pass == 0 ? x(outer[i + 1]) <= x(r) : x(outer[i + 1]) >= x(r)))
+                {
+                    i++;
+                }
+                int a = outer[i];
+                int b = outer[i + 1];
+                double length = Math.hypot(x(b) - x(a), y(b) - y(a));
+                if (cross(a, b, r) < band * length)
+                {
+                    isOuter[r] = true;
+                }
+            }
+            for (int j = 0; j < size; j++)
+            {
+                isOuter[outer[j]] = true;
+            }
+        }
+        outerCount = 0;
+        for (int r = 0; r < n; r++)
+        {
+            if (isOuter[r])
+            {
+                outer[outerCount++] = r;
+            }
+        }
+    }
+
+    private double cross(int o, int a, int b)
+    {
+        return (x(a) - x(o)) * (y(b) - y(o)) - (y(a) - y(o)) * (x(b) - x(o));
+    }
+
+    private void buildBounds()
+    {
+        blocks = 1;
+        while (blocks * BLOCK < n)
+        {
+            blocks <<= 1;
+        }
+        if (boundMinY.length < 2 * blocks)
+        {
+            boundMinY = new double[2 * blocks];
+            boundMaxY = new double[2 * blocks];
+        }
+        for (int b = 0; b < blocks; b++)
+        {
+            double low = Double.POSITIVE_INFINITY;
+            double high = Double.NEGATIVE_INFINITY;
+            for (int r = b * BLOCK, end = Math.min(n, r + BLOCK); r < end; r++)
+            {
+                low = Math.min(low, y(r));
+                high = Math.max(high, y(r));
+            }
+            boundMinY[blocks + b] = low;
+            boundMaxY[blocks + b] = high;
+        }
+        for (int node = blocks - 1; node > 0; node--)
+        {
+            boundMinY[node] = Math.min(boundMinY[2 * node], boundMinY[2 * node + 1]);
+            boundMaxY[node] = Math.max(boundMaxY[2 * node], boundMaxY[2 * node + 1]);
+        }
+    }
+
+    // Mean distance between the sites if they were evenly spread over their bounds
+    private double meanSpacing()
+    {
+        double sx = x(n - 1) - x(0);
+        double sy = Math.max(boundMaxY[1] - boundMinY[1], 0.0);
+        double spacing = sy > 0 ? Math.sqrt(sx * sy / n) : sx / n;
+        return spacing;
+    }
+
+    // First rank whose x is not smaller than x, searched in [from, to)
+    private int lowerBound(double x, int from, int to)
+    {
+        while (from < to)
+        {
+            int mid = (from + to) >>> 1;
+            if (x(mid) < x)
+            {
+                from = mid + 1;
+            } else
+            {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    /*
+     * The sites with rank lo to hi - 1 and the edges they own. The input of its sweep are the
+     * sites within the halo, the sites on the hull and the sites that failed checks found.
+     */
+    private class Strip
+    {
+        int lo, hi;
+        final ArrayVoronoi engine = new ArrayVoronoi(0);
+        double[] x = new double[0];
+        double[] y = new double[0];
+        // rank of each site of the input
+        int[] ranks = new int[0];
+        final double[] dir = new double[2];
+        List<GraphEdge> edges;
+
+        // Sites outside of the halo that are part of the input, in rank order
+        int[] extra = new int[0];
+        int extraCount;
+        // Sites that the last check found in a circle or half plane, with duplicates
+        int[] found = new int[0];
+        int foundCount;
+        // Set by a check that cannot name the sites it misses
+        boolean unresolved;
+
+        Strip()
+        {
+            // The hull sites make the input as wide as the diagram
+            engine.setBeachLine(BeachLine.TREE);
+        }
+
+        void compute()
+        {
+            double width = halo;
+            extraCount = 0;
+            while (true)
+            {
+                // All sites with rank first to last - 1 are part of the input
+                int first = lowerBound(x(lo) - width, 0, lo);
+                int last = lowerBound(x(hi - 1) + width, hi, n);
+                if (run(first, last))
+                {
+                    return;
+                }
+                if (unresolved || foundCount > hi - lo || extraCount > hi - lo)
+                {
+                    // Many sites are missing, so that a wider halo is cheaper
+                    width = width > 0 ? 4.0 * width : Double.POSITIVE_INFINITY;
+                    extraCount = 0;
+                } else
+                {
+                    mergeFound();
+                }
+            }
+        }
+
+        private boolean isExtra(int r)
+        {
+            return Arrays.binarySearch(extra, 0, extraCount, r) >= 0;
+        }
+
+        // Merge the found sites into the extra sites
+        private void mergeFound()
+        {
+            Arrays.sort(found, 0, foundCount);
+            if (extra.length < extraCount + foundCount)
+            {
+                extra = Arrays.copyOf(extra, 2 * (extraCount + foundCount));
+            }
+            System.arraycopy(found, 0, extra, extraCount, foundCount);
+            int count = extraCount + foundCount;
+            Arrays.sort(extra, 0, count);
+            extraCount = 0;
+            for (int i = 0; i < count; i++)
+            {
+                if (extraCount == 0 || extra[extraCount - 1] != extra[i])
+                {
+                    extra[extraCount++] = extra[i];
+                }
+            }
+        }
+
+        private boolean run(int first, int last)
+        {
+            int size = last - first + outerCount + extraCount;
+            if (x.length < size)
+            {
+                x = new double[size];
+                y = new double[size];
+                ranks = new int[size];
+            }
+            // In rank order, so that the sweep sees equal sites in the same order as the serial one
+            int count = 0;
+            int h = 0;
+            int k = 0;
+            while (true)
+            {
+                int r = Math.min(h < outerCount ? outer[h] : n, k < extraCount ? extra[k] : n);
+                if (r >= first)
+                {
+                    break;
+                }
+                ranks[count++] = r;
+                h += h < outerCount && outer[h] == r ? 1 : 0;
+                k += k < extraCount && extra[k] == r ? 1 : 0;
+            }
+            for (int r = first; r < last; r++)
+            {
+                ranks[count++] = r;
+            }
+            while (h < outerCount && outer[h] < last)
+            {
+                h++;
+            }
+            while (k < extraCount && extra[k] < last)
+            {
+                k++;
+            }
+            while (h < outerCount || k < extraCount)
+            {
+                int r = Math.min(h < outerCount ? outer[h] : n, k < extraCount ? extra[k] : n);
+                ranks[count++] = r;
+                h += h < outerCount && outer[h] == r ? 1 : 0;
+                k += k < extraCount && extra[k] == r ? 1 : 0;
+            }
+            for (int i = 0; i < count; i++)
+            {
+                x[i] = x(ranks[i]);
+                y[i] = y(ranks[i]);
+            }
+            int edgeCount = engine.generateVoronoi(x, y, count, minX, maxX, minY, maxY);
+
+            if ((first > 0 || last < n) && !isComplete(first, last))
+            {
+                return false;
+            }
+
+            List<GraphEdge> result = new ArrayList<>(3 * (hi - lo));
+            double minDist2 = minDistanceBetweenSites * minDistanceBetweenSites;
+            for (int i = 0; i < edgeCount; i++)
+            {
+                int rank1 = ranks[engine.getSite1(i)];
+                int rank2 = ranks[engine.getSite2(i)];
+                int owner = Math.min(rank1, rank2);
+                if (owner < lo || owner >= hi)
+                {
+                    continue;
+                }
+                // Same filter as clip_line, which the engine skips as it runs with 0
+                double dx = x(rank2) - x(rank1);
+                double dy = y(rank2) - y(rank1);
+                if (dx * dx + dy * dy < minDist2)
+                {
+                    continue;
+                }
+                GraphEdge e = new GraphEdge();
+                e.x1 = engine.getX1(i);
+                e.y1 = engine.getY1(i);
+                e.x2 = engine.getX2(i);
+                e.y2 = engine.getY2(i);
+                e.site1 = order[rank1];
+                e.site2 = order[rank2];
+                result.add(e);
+            }
+            edges = result;
+            return true;
+        }
+
+        /*
+         * Check that the cells of the sites of this strip are the cells of the complete diagram.
+         * The sites that are missing in the input are collected in found.
+         */
+        private boolean isComplete(int first, int last)
+        {
+            foundCount = 0;
+            unresolved = false;
+            // All sites strictly between these x coordinates are part of the input
+            double coverMinX = first == 0 ? Double.NEGATIVE_INFINITY : x(first - 1);
+            double coverMaxX = last == n ? Double.POSITIVE_INFINITY : x(last);
+            for (int e = 0, count = engine.getBisectorCount(); e < count; e++)
+            {
+                int rank1 = ranks[engine.getBisectorSite(e, 0)];
+                int rank2 = ranks[engine.getBisectorSite(e, 1)];
+                if ((rank1 < lo || rank1 >= hi) && (rank2 < lo || rank2 >= hi))
+                {
+                    continue;
+                }
+                for (int side = 0; side < 2; side++)
+                {
+                    int v = engine.getBisectorEnd(e, side);
+                    if (v >= 0)
+                    {
+                        double cx = engine.getVertexX(v);
+                        double cy = engine.getVertexY(v);
+                        double dx = cx - x(rank1);
+                        double dy = cy - y(rank1);
+                        double r = Math.sqrt(dx * dx + dy * dy);
+                        // Most circles stay within the sites of the strip
+                        if (cx - r > coverMinX && cx + r < coverMaxX)
+                        {
+                            continue;
+                        }
+                        findInside(cx, cy, r, 0, first);
+                        findInside(cx, cy, r, last, n);
+                    } else
+                    {
+                        // The circles around the points of the bisector grow into this half plane
+                        engine.getBisectorDirection(e, side, dir);
+                        double mx = (x(rank1) + x(rank2)) * 0.5;
+                        double my = (y(rank1) + y(rank2)) * 0.5;
+                        findBeyond(mx, my, dir[0], dir[1], 0, first);
+                        findBeyond(mx, my, dir[0], dir[1], last, n);
+                    }
+                    if (unresolved || foundCount > hi - lo)
+                    {
+                        return false;
+                    }
+                }
+            }
+            return foundCount == 0;
+        }
+
+        private void addFound(int r)
+        {
+            if (isOuter[r] || isExtra(r))
+            {
+                return;
+            }
+            if (found.length == foundCount)
+            {
+                found = Arrays.copyOf(found, Math.max(16, 2 * foundCount));
+            }
+            found[foundCount++] = r;
+        }
+
+        /*
+         * Find the sites with a rank in [from, to) that are inside the circle. The circle is
+         * enlarged a little, so that rounding errors in its center do not matter.
+         */
+        private void findInside(double cx, double cy, double r, int from, int to)
+        {
+            if (!(r >= 0))
+            {
+                // NaN, as for the bisector of two sites at the same place
+                unresolved = true;
+                return;
+            }
+            r += 1.0e-9 * (Math.abs(cx) + Math.abs(cy) + r) + tolerance;
+            findInside(cx, cy, r * r, from, to, 1, 0, blocks * BLOCK);
+        }
+
+        private void findInside(double cx, double cy, double r2, int from, int to, int node, int nodeFrom, int nodeTo)
+        {
+            int lo = Math.max(from, nodeFrom);
+            int hi = Math.min(Math.min(to, nodeTo), n);
+            if (lo >= hi || foundCount > this.hi - this.lo)
+            {
+                return;
+            }
+            // Distance from the center to the bounds of the sites
+            double dx = Math.max(0.0, Math.max(x(lo) - cx, cx - x(hi - 1)));
+            double dy = Math.max(0.0, Math.max(boundMinY[node] - cy, cy - boundMaxY[node]));
+            if (dx * dx + dy * dy >= r2)
+            {
+                return;
+            }
+            if (node >= blocks)
+            {
+                for (int r = lo; r < hi; r++)
+                {
+                    double sx = x(r) - cx;
+                    double sy = y(r) - cy;
+                    if (sx * sx + sy * sy < r2)
+                    {
+                        addFound(r);
+                    }
+                }
+                return;
+            }
+            int mid = (nodeFrom + nodeTo) >>> 1;
+            findInside(cx, cy, r2, from, to, 2 * node, nodeFrom, mid);
+            findInside(cx, cy, r2, from, to, 2 * node + 1, mid, nodeTo);
+        }
+
+        /*
+         * Find the sites with a rank in [from, to) in the half plane (p - m) * d > 0.
+         * Sites on the border of the half plane are ignored.
+         */
+        private void findBeyond(double mx, double my, double dx, double dy, int from, int to)
+        {
+            if (Double.isNaN(mx + my + dx + dy))
+            {
+                unresolved = true;
+                return;
+            }
+            double limit = tolerance * (Math.abs(dx) + Math.abs(dy));
+            findBeyond(mx, my, dx, dy, limit, from, to, 1, 0, blocks * BLOCK);
+        }
+
+        private void findBeyond(double mx, double my, double dx, double dy, double limit,
+                int from, int to, int node, int nodeFrom, int nodeTo)
+        {
+            int lo = Math.max(from, nodeFrom);
+            int hi = Math.min(Math.min(to, nodeTo), n);
+            if (lo >= hi || foundCount > this.hi - this.lo)
+            {
+                return;
+            }
+            // The corner of the bounds that is farthest in direction d
+            double px = dx >= 0 ? x(hi - 1) : x(lo);
+            double py = dy >= 0 ? boundMaxY[node] : boundMinY[node];
+            if ((px - mx) * dx + (py - my) * dy <= limit)
+            {
+                return;
+            }
+            if (node >= blocks)
+            {
+                for (int r = lo; r < hi; r++)
+                {
+                    if ((x(r) - mx) * dx + (y(r) - my) * dy > limit)
+                    {
+                        addFound(r);
+                    }
+                }
+                return;
+            }
+            int mid = (nodeFrom + nodeTo) >>> 1;
+            findBeyond(mx, my, dx, dy, limit, from, to, 2 * node, nodeFrom, mid);
+            findBeyond(mx, my, dx, dy, limit, from, to, 2 * node + 1, mid, nodeTo);
+        }
+    }
+}
@@ -47,9 +47,6 @@ import java.awt.geom.Point2D;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.LinkedList;
 import java.util.List;
 
 /**
@@ -73,6 +70,10 @@ public class Voronoi
     private int PQmin;
     private int PQhashsize;
     private Halfedge PQhash[];
+    private EventQueue eventQueue = EventQueue.BUCKET;
+    private boolean PQuseheap;
+    private Halfedge PQheap[];
+    private int PQseq;
 
     private final static int LE = 0;
     private final static int RE = 1;
@@ -80,7 +81,29 @@ public class Voronoi
     private int ELhashsize;
     private Halfedge ELhash[];
     private Halfedge ELleftend, ELrightend;
+    private BeachLine beachLine = BeachLine.HASH;
+    private boolean ELusetree;
+    private Halfedge ELroot;
+    private int ELseed;
+    private double PQminX, PQminY;
     protected List<GraphEdge> allEdges;
+    // Receives the clipped edges instead of allEdges if set
+    private EdgeConsumer edgeConsumer;
+
+    // Workspace that is kept between calls if reuseWorkspace is set
+    private boolean reuseWorkspace;
+    private ArrayList<GraphEdge> edgeList;
+    private GraphEdge[] edgePool;
+    private int edgePoolUsed;
+    private Site[] sitePool;
+    private IndexSort sorter;
+    private double[] sortX, sortY;
+    private int[] sortOrder;
+    private Site[] sortedSites;
+    private int sitePoolUsed;
+    private Edge[] freeEdges;
+    private int freeEdgeCount;
+    private Halfedge freeHalfedges;
 
     /*********************************************************
      * Public methods
@@ -95,6 +118,80 @@ public class Voronoi
         this.minDistanceBetweenSites = minDistanceBetweenSites;
     }
 
+    /**
+     * Keep the internal buffers, the returned edge list and its edges between calls
+     * to generateVoronoi instead of allocating new ones. Once the buffers have grown
+     * to the size of the diagram, repeated calls hardly allocate anything.
+     * Beware that in this mode the list returned by generateVoronoi and the edges in it
+     * are overwritten by the next call.
+     *
+     * @param reuseWorkspace true to reuse the workspace, false to allocate a new one for every call
+     */
+    public void setReuseWorkspace(boolean reuseWorkspace)
+    {
+        this.reuseWorkspace = reuseWorkspace;
+        if (!reuseWorkspace)
+        {
+            edgeList = null;
+            edgePool = null;
+            sitePool = null;
+            sorter = null;
+            sortX = null;
+            sortY = null;
+            sortOrder = null;
+            sortedSites = null;
+            freeEdges = null;
+            freeHalfedges = null;
+        }
+    }
+
+    public boolean isReuseWorkspace()
+    {
+        return reuseWorkspace;
+    }
+
+    /**
+     * Select the implementation of the vertex event queue. Defaults to {@link EventQueue#BUCKET}.
+     * Both implementations produce the same diagram, but {@link EventQueue#HEAP} keeps its
+     * O(log n) performance if the sites are not evenly distributed along the y axis.
+     *
+     * @param eventQueue the queue to use for the next calls of generateVoronoi
+     */
+    public void setEventQueue(EventQueue eventQueue)
+    {
+        if (eventQueue == null)
+        {
+            throw new NullPointerException("eventQueue");
+        }
+        this.eventQueue = eventQueue;
+    }
+
+    public EventQueue getEventQueue()
+    {
+        return eventQueue;
+    }
+
+    /**
+     * Select the structure used to locate new sites on the beach line. Defaults to
+     * {@link BeachLine#HASH}. {@link BeachLine#TREE} guarantees O(log n) expected time
+     * per site if the sites are clustered or mostly collinear.
+     *
+     * @param beachLine the structure to use for the next calls of generateVoronoi
+     */
+    public void setBeachLine(BeachLine beachLine)
+    {
+        if (beachLine == null)
+        {
+            throw new NullPointerException("beachLine");
+        }
+        this.beachLine = beachLine;
+    }
+
+    public BeachLine getBeachLine()
+    {
+        return beachLine;
+    }
+
     /**
      * 
      * @param xValuesIn Array of X values for each site.
@@ -109,21 +206,41 @@ public class Voronoi
             double minX, double maxX, double minY, double maxY)
     {
         //sites = null;
-        allEdges = new LinkedList<>();
-
         int count = xValuesIn.length;
-        ArrayList<Site> input = new ArrayList<>();
-       
-        // Copy the inputs so we don't modify the originals
-        for (int i = 0; i < count; i++)
+        resetWorkspace(count);
+
+        if (reuseWorkspace)
+        {
+            // Fill the (reused) site array directly, no need for a copy
+            nsites = count;
+            if (sites == null || sites.length < count)
+            {
+                sites = new Site[count];
+            }
+            for (int i = 0; i < count; i++)
+            {
+                Site s = newSite();
+                s.x = xValuesIn[i];
+                s.y = yValuesIn[i];
+                s.sitenbr = i;
+                sites[i] = s;
+            }
+            sortSites();
+        } else
         {
-            Site s = new Site();
-            s.x = xValuesIn[i];
-            s.y = yValuesIn[i];
-            s.sitenbr = i;
-            input.add(s);
+            ArrayList<Site> input = new ArrayList<>();
+
+            // Copy the inputs so we don't modify the originals
+            for (int i = 0; i < count; i++)
+            {
+                Site s = new Site();
+                s.x = xValuesIn[i];
+                s.y = yValuesIn[i];
+                s.sitenbr = i;
+                input.add(s);
+            }
+            sortNode(input);
         }
-        sortNode(input);
 
         setBorder(minX, maxX, minY, maxY);
         voronoi_bd();
@@ -131,6 +248,64 @@ public class Voronoi
         return allEdges;
     }
 
+    /**
+     * Hand every edge to the consumer as soon as it is clipped. No GraphEdge is created
+     * and no list is filled, the edges only exist as the arguments of the consumer.
+     *
+     * @param xValuesIn Array of X values for each site.
+     * @param yValuesIn Array of Y values for each site. Must be identical length to yValuesIn
+     * @param minX The minimum X of the bounding box around the voronoi
+     * @param maxX The maximum X of the bounding box around the voronoi
+     * @param minY The minimum Y of the bounding box around the voronoi
+     * @param maxY The maximum Y of the bounding box around the voronoi
+     * @param consumer receives the generated voronoi edges
+     */
+    public void generateVoronoi(double[] xValuesIn, double[] yValuesIn,
+            double minX, double maxX, double minY, double maxY, EdgeConsumer consumer)
+    {
+        if (consumer == null)
+        {
+            throw new NullPointerException("consumer");
+        }
+        edgeConsumer = consumer;
+        try
+        {
+            generateVoronoi(xValuesIn, yValuesIn, minX, maxX, minY, maxY);
+        } finally
+        {
+            edgeConsumer = null;
+        }
+    }
+
+    /**
+     * Prepare {@link #allEdges} and the node pools for a new diagram, with {@link #allEdges}
+     * sized for the given amount of sites. Must be called before the sites are handed to the sweep.
+     */
+    protected void resetWorkspace(int siteCount)
+    {
+        if (!reuseWorkspace)
+        {
+            // Stays empty if the edges are streamed
+            allEdges = new ArrayList<>(edgeConsumer == null ? EdgeBuffer.expectedEdges(siteCount) : 0);
+            return;
+        }
+        if (edgeList == null)
+        {
+            edgeList = new ArrayList<>();
+            edgePool = new GraphEdge[16];
+            sitePool = new Site[16];
+            freeEdges = new Edge[16];
+        }
+        edgeList.clear();
+        if (edgeConsumer == null)
+        {
+            edgeList.ensureCapacity(EdgeBuffer.expectedEdges(siteCount));
+        }
+        edgePoolUsed = 0;
+        sitePoolUsed = 0;
+        allEdges = edgeList;
+    }
+
     protected void setBorder(double minX, double maxX, double minY, double maxY) {
         // Check bounding box inputs - if mins are bigger than maxes, swap them
         double temp = 0;
@@ -158,58 +333,102 @@ public class Voronoi
      * Private methods - implementation details
      ********************************************************/
 
-    private void qsort(Site[] sites)
+    // Sort the first count sites by y, then x, keeping the input order of equal sites
+    private void qsort(int count)
     {
-        // The returning list is backed by the array; so no need to copy it back!
-        List<Site> listSites = Arrays.asList(sites);
+        double[] x = sortX;
+        double[] y = sortY;
+        int[] order = sortOrder;
+        Site[] sorted = sortedSites;
+        if (!reuseWorkspace || x == null || x.length < count)
+        {
+            x = new double[count];
+            y = new double[count];
+            order = new int[count];
+        }
+        if (!reuseWorkspace || sorted == null || sorted.length < count)
+        {
+            sorted = new Site[count];
+        }
+        if (sorter == null || !reuseWorkspace)
+        {
+            sorter = new IndexSort();
+        }
+        for (int i = 0; i < count; i++)
+        {
+            x[i] = sites[i].x;
+            y[i] = sites[i].y;
+        }
+        sorter.sort(y, x, count, order);
+        for (int i = 0; i < count; i++)
+        {
+            sorted[i] = sites[order[i]];
+        }
+        if (reuseWorkspace)
+        {
+            // Keep the old site array as buffer for the next call
+            sortX = x;
+            sortY = y;
+            sortOrder = order;
+            sortedSites = sites;
+            sites = sorted;
+        } else
+        {
+            System.arraycopy(sorted, 0, sites, 0, count);
+        }
+    }
 
-        Collections.sort(listSites, new Comparator<Site>()
+    protected void sortNode(List<Site> input)
+    {
+        int i;
+        nsites = input.size();
+        if (reuseWorkspace)
         {
-            @Override
-            public final int compare(Site p1, Site p2)
+            if (sites == null || sites.length < nsites)
             {
-                if (p1.y < p2.y)
-                {
-                    return (-1);
-                }
-                if (p1.y > p2.y)
-                {
-                    return (1);
-                }
-                if (p1.x < p2.x)
-                {
-                    return (-1);
-                }
-                if (p1.x > p2.x)
-                {
-                    return (1);
-                }
-                return (0);
+                sites = new Site[nsites];
             }
-        });
+        } else
+        {
+            sites = new Site[nsites];
+        }
+        for (i = 0; i < nsites; i++)
+        {
+            Site in = input.get(i);
+            if (reuseWorkspace)
+            {
+                Site s = newSite();
+                s.x = in.x;
+                s.y = in.y;
+                s.sitenbr = in.sitenbr;
+                sites[i] = s;
+            } else
+            {
+                sites[i] = (Site) in.clone();
+            }
+        }
+        sortSites();
     }
 
-    protected void sortNode(List<Site> input)
+    // Sort the first nsites entries of sites and compute the bounds of the sites
+    private void sortSites()
     {
         int i;
-        nsites = input.size();
         nvertices = 0;
         nedges = 0;
-        
+
         double sn = (double) nsites + 4;
         sqrt_nsites = (int) Math.sqrt(sn);
-        
-        sites = new Site[nsites];
-        Site first = input.get(0);
+
+        Site first = sites[0];
         xmin = first.x;
         ymin = first.y;
         xmax = first.x;
         ymax = first.y;
         for (i = 0; i < nsites; i++)
         {
-            Site s = (Site) input.get(i).clone();
-            sites[i] = s;
-     
+            Site s = sites[i];
+
             if (s.x < xmin)
             {
                 xmin = s.x;
@@ -226,7 +445,7 @@ public class Voronoi
                 ymax = s.y;
             }
         }
-        qsort(sites);
+        qsort(nsites);
         deltay = ymax - ymin;
         deltax = xmax - xmin;
     }
@@ -251,7 +470,7 @@ public class Voronoi
         double dx, dy, adx, ady;
         Edge newedge;
 
-        newedge = new Edge();
+        newedge = newEdge();
 
         // store the sites that this edge is bisecting
         newedge.reg[0] = s1;
@@ -288,6 +507,52 @@ public class Voronoi
         return (newedge);
     }
 
+    private Edge newEdge()
+    {
+        if (freeEdgeCount > 0)
+        {
+            Edge e = freeEdges[--freeEdgeCount];
+            freeEdges[freeEdgeCount] = null;
+            return e;
+        }
+        return new Edge();
+    }
+
+    // Return an edge that has been clipped to the edge pool
+    private void freeEdge(Edge e)
+    {
+        if (!reuseWorkspace)
+        {
+            return;
+        }
+        if (freeEdgeCount == freeEdges.length)
+        {
+            freeEdges = Arrays.copyOf(freeEdges, freeEdgeCount * 2);
+        }
+        freeEdges[freeEdgeCount++] = e;
+    }
+
+    // Obtain a site for the input or for a vertex, from the pool if possible
+    private Site newSite()
+    {
+        if (!reuseWorkspace)
+        {
+            return new Site();
+        }
+        if (sitePoolUsed == sitePool.length)
+        {
+            sitePool = Arrays.copyOf(sitePool, sitePoolUsed * 2);
+        }
+        Site s = sitePool[sitePoolUsed];
+        if (s == null)
+        {
+            s = new Site();
+            sitePool[sitePoolUsed] = s;
+        }
+        sitePoolUsed++;
+        return s;
+    }
+
     private void makevertex(Site v)
     {
         v.sitenbr = nvertices;
@@ -298,7 +563,26 @@ public class Voronoi
     {
         PQcount = 0;
         PQmin = 0;
+        PQuseheap = eventQueue == EventQueue.HEAP;
+        if (PQuseheap)
+        {
+            PQseq = 0;
+            // There are at most 2 * nsites arcs on the beach line, each with at most one event
+            if (PQheap == null || PQheap.length < 2 * nsites + 1)
+            {
+                PQheap = new Halfedge[2 * nsites + 1];
+            }
+            return true;
+        }
         PQhashsize = 4 * sqrt_nsites;
+        if (reuseWorkspace && PQhash != null && PQhash.length >= PQhashsize)
+        {
+            for (int i = 0; i < PQhashsize; i += 1)
+            {
+                PQhash[i].PQnext = null;
+            }
+            return true;
+        }
         PQhash = new Halfedge[PQhashsize];
 
         for (int i = 0; i < PQhashsize; i += 1)
@@ -335,6 +619,11 @@ public class Voronoi
 
         he.vertex = v;
         he.ystar = v.y + offset;
+        if (PQuseheap)
+        {
+            PQheapinsert(he);
+            return;
+        }
         last = PQhash[PQbucket(he)];
         while ((next = last.PQnext) != null
                 && (he.ystar > next.ystar || (he.ystar == next.ystar && v.x > next.vertex.x)))
@@ -351,7 +640,11 @@ public class Voronoi
     {
         Halfedge last;
 
-        if (he.vertex != null)
+        if (he.vertex != null && PQuseheap)
+        {
+            PQheapremove(he);
+            he.vertex = null;
+        } else if (he.vertex != null)
         {
             last = PQhash[PQbucket(he)];
             while (last.PQnext != he)
@@ -370,33 +663,152 @@ public class Voronoi
         return (PQcount == 0);
     }
 
-    private Point2D PQ_min()
+    // Stores the position of the lowest vertex in PQminX and PQminY
+    private void PQ_min()
     {
-        Point2D.Double answer = new Point2D.Double();
-
+        if (PQuseheap)
+        {
+            PQminX = PQheap[0].vertex.x;
+            PQminY = PQheap[0].ystar;
+            return;
+        }
         while (PQhash[PQmin].PQnext == null)
         {
             PQmin += 1;
         }
-        answer.x = PQhash[PQmin].PQnext.vertex.x;
-        answer.y = PQhash[PQmin].PQnext.ystar;
-        return (answer);
+        PQminX = PQhash[PQmin].PQnext.vertex.x;
+        PQminY = PQhash[PQmin].PQnext.ystar;
     }
 
     private Halfedge PQextractmin()
     {
         Halfedge curr;
 
+        if (PQuseheap)
+        {
+            curr = PQheap[0];
+            PQheapremove(curr);
+            return (curr);
+        }
         curr = PQhash[PQmin].PQnext;
         PQhash[PQmin].PQnext = curr.PQnext;
         PQcount -= 1;
         return (curr);
     }
 
+    /*
+     * Indexed 4-ary heap ordered by (ystar, vertex.x), with the same tie breaking as the
+     * bucket lists: among equal events the one inserted last comes first.
+     */
+    private boolean PQless(Halfedge a, Halfedge b)
+    {
+        if (a.ystar != b.ystar)
+        {
+            return a.ystar < b.ystar;
+        }
+        if (a.vertex.x != b.vertex.x)
+        {
+            return a.vertex.x < b.vertex.x;
+        }
+        return a.PQseq > b.PQseq;
+    }
+
+    private void PQheapinsert(Halfedge he)
+    {
+        if (PQcount == PQheap.length)
+        {
+            PQheap = Arrays.copyOf(PQheap, PQcount * 2);
+        }
+        he.PQseq = PQseq++;
+        PQcount += 1;
+        PQsiftup(he, PQcount - 1);
+    }
+
+    private void PQheapremove(Halfedge he)
+    {
+        int i = he.PQindex;
+        PQcount -= 1;
+        Halfedge last = PQheap[PQcount];
+        PQheap[PQcount] = null;
+        if (last != he)
+        {
+            if (i > 0 && PQless(last, PQheap[(i - 1) >> 2]))
+            {
+                PQsiftup(last, i);
+            } else
+            {
+                PQsiftdown(last, i);
+            }
+        }
+        he.PQindex = -1;
+    }
+
+    private void PQsiftup(Halfedge he, int i)
+    {
+        while (i > 0)
+        {
+            int parent = (i - 1) >> 2;
+            Halfedge p = PQheap[parent];
+            if (!PQless(he, p))
+            {
+                break;
+            }
+            PQheap[i] = p;
+            p.PQindex = i;
+            i = parent;
+        }
+        PQheap[i] = he;
+        he.PQindex = i;
+    }
+
+    private void PQsiftdown(Halfedge he, int i)
+    {
+        while (true)
+        {
+            int child = 4 * i + 1;
+            if (child >= PQcount)
+            {
+                break;
+            }
+            int end = Math.min(child + 4, PQcount);
+            int min = child;
+            for (int c = child + 1; c < end; c++)
+            {
+                if (PQless(PQheap[c], PQheap[min]))
+                {
+                    min = c;
+                }
+            }
+            if (!PQless(PQheap[min], he))
+            {
+                break;
+            }
+            PQheap[i] = PQheap[min];
+            PQheap[i].PQindex = i;
+            i = min;
+        }
+        PQheap[i] = he;
+        he.PQindex = i;
+    }
+
     private Halfedge HEcreate(Edge e, int pm)
     {
         Halfedge answer;
-        answer = new Halfedge();
+        if (freeHalfedges != null)
+        {
+            answer = freeHalfedges;
+            freeHalfedges = answer.PQnext;
+            answer.ELleft = null;
+            answer.ELright = null;
+            answer.deleted = false;
+            answer.ystar = 0;
+            answer.BLleft = null;
+            answer.BLright = null;
+            answer.BLparent = null;
+        } else
+        {
+            answer = new Halfedge();
+        }
         answer.ELedge = e;
         answer.ELpm = pm;
         answer.PQnext = null;
@@ -407,25 +819,75 @@ public class Voronoi
     private boolean ELinitialize()
     {
         int i;
-        ELhashsize = 2 * sqrt_nsites;
-        ELhash = new Halfedge[ELhashsize];
-
-        for (i = 0; i < ELhashsize; i += 1)
+        if (reuseWorkspace)
         {
-            ELhash[i] = null;
+            ELrelease();
         }
+        ELusetree = beachLine == BeachLine.TREE;
         ELleftend = HEcreate(null, 0);
         ELrightend = HEcreate(null, 0);
         ELleftend.ELleft = null;
         ELleftend.ELright = ELrightend;
         ELrightend.ELleft = ELleftend;
         ELrightend.ELright = null;
+        if (ELusetree)
+        {
+            ELseed = 0x2545F491;
+            ELroot = ELleftend;
+            ELleftend.BLpriority = ELnextpriority();
+            BLinsertafter(ELleftend, ELrightend);
+            return true;
+        }
+
+        ELhashsize = 2 * sqrt_nsites;
+        if (!reuseWorkspace || ELhash == null || ELhash.length < ELhashsize)
+        {
+            ELhash = new Halfedge[ELhashsize];
+        }
+        for (i = 0; i < ELhashsize; i += 1)
+        {
+            ELhash[i] = null;
+        }
         ELhash[0] = ELleftend;
         ELhash[ELhashsize - 1] = ELrightend;
+        ELleftend.ELrefcnt = 1;
+        ELrightend.ELrefcnt = 1;
 
         return true;
     }
 
+    // Return the halfedges of the previous run to the pool
+    private void ELrelease()
+    {
+        int i;
+        if (ELhash != null)
+        {
+            for (i = 0; i < ELhash.length; i += 1)
+            {
+                Halfedge he = ELhash[i];
+                if (he != null)
+                {
+                    ELhash[i] = null;
+                    he.ELrefcnt -= 1;
+                    if (he.deleted && he.ELrefcnt == 0)
+                    {
+                        freeHalfedge(he);
+                    }
+                }
+            }
+        }
+        Halfedge next;
+        for (Halfedge he = ELleftend; he != null; he = next)
+        {
+            next = he.ELright;
+            he.ELrefcnt = 0;
+            freeHalfedge(he);
+        }
+        ELleftend = null;
+        ELrightend = null;
+        ELroot = null;
+    }
+
     private Halfedge ELright(Halfedge he)
     {
         return (he.ELright);
@@ -451,17 +913,43 @@ public class Voronoi
         newHe.ELright = lb.ELright;
         (lb.ELright).ELleft = newHe;
         lb.ELright = newHe;
+        if (ELusetree)
+        {
+            BLinsertafter(lb, newHe);
+        }
     }
 
     /*
-     * This delete routine can't reclaim node, since pointers from hash table
-     * may be present.
+     * This delete routine can only reclaim the node if there are no pointers
+     * from the hash table to it, otherwise ELgethash reclaims it once the last
+     * pointer is pruned.
      */
     private void ELdelete(Halfedge he)
     {
         (he.ELleft).ELright = he.ELright;
         (he.ELright).ELleft = he.ELleft;
         he.deleted = true;
+        if (ELusetree)
+        {
+            BLremove(he);
+        }
+        if (he.ELrefcnt == 0)
+        {
+            freeHalfedge(he);
+        }
+    }
+
+    // Return a deleted halfedge to the pool
+    private void freeHalfedge(Halfedge he)
+    {
+        if (!reuseWorkspace)
+        {
+            return;
+        }
+        he.ELedge = null;
+        he.vertex = null;
+        he.PQnext = freeHalfedges;
+        freeHalfedges = he;
     }
 
     /* Get entry from hash table, pruning any deleted nodes */
@@ -481,6 +969,11 @@ public class Voronoi
 
         /* Hash table points to deleted half edge. Patch as necessary. */
         ELhash[b] = null;
+        he.ELrefcnt -= 1;
+        if (he.ELrefcnt == 0)
+        {
+            freeHalfedge(he);
+        }
         return (null);
     }
 
@@ -489,6 +982,11 @@ public class Voronoi
         int i, bucket;
         Halfedge he;
 
+        if (ELusetree)
+        {
+            return BLleftbnd(p);
+        }
+
         /* Use hash table to get close to desired halfedge */
         // use the hash function to find the place in the hash map that this
         // HalfEdge should be
@@ -545,14 +1043,172 @@ public class Voronoi
         /* Update hash table and reference counts */
         if (bucket > 0 && bucket < ELhashsize - 1)
         {
+            Halfedge old = ELhash[bucket];
+            if (old != null)
+            {
+                old.ELrefcnt -= 1;
+                if (old.deleted && old.ELrefcnt == 0)
+                {
+                    freeHalfedge(old);
+                }
+            }
             ELhash[bucket] = he;
+            he.ELrefcnt += 1;
         }
         return (he);
     }
 
+    /*
+     * The treap of BeachLine.TREE. It holds the same halfedges as the ELleft/ELright list
+     * in the same order, and is balanced by the random priorities (the lowest one is the root).
+     */
+    private int ELnextpriority()
+    {
+        // xorshift, seeded the same for every run so that the sweep is reproducible
+        ELseed ^= ELseed << 13;
+        ELseed ^= ELseed >>> 17;
+        ELseed ^= ELseed << 5;
+        return ELseed;
+    }
+
+    // Search the tree for the rightmost halfedge that p is to the right of
+    private Halfedge BLleftbnd(Point2D p)
+    {
+        Halfedge he = ELroot;
+        Halfedge answer = ELleftend;
+        while (he != null)
+        {
+            if (he == ELleftend || (he != ELrightend && right_of(he, p)))
+            {
+                answer = he;
+                he = he.BLright;
+            } else
+            {
+                he = he.BLleft;
+            }
+        }
+        return (answer);
+    }
+
+    // Rotate he above its parent
+    private void BLrotateup(Halfedge he)
+    {
+        Halfedge parent = he.BLparent;
+        Halfedge grand = parent.BLparent;
+        if (parent.BLleft == he)
+        {
+            parent.BLleft = he.BLright;
+            if (he.BLright != null)
+            {
+                he.BLright.BLparent = parent;
+            }
+            he.BLright = parent;
+        } else
+        {
+            parent.BLright = he.BLleft;
+            if (he.BLleft != null)
+            {
+                he.BLleft.BLparent = parent;
+            }
+            he.BLleft = parent;
+        }
+        parent.BLparent = he;
+        he.BLparent = grand;
+        if (grand == null)
+        {
+            ELroot = he;
+        } else if (grand.BLleft == parent)
+        {
+            grand.BLleft = he;
+        } else
+        {
+            grand.BLright = he;
+        }
+    }
+
+    // Insert newHe as the successor of lb
+    private void BLinsertafter(Halfedge lb, Halfedge newHe)
+    {
+        newHe.BLleft = null;
+        newHe.BLright = null;
+        newHe.BLpriority = ELnextpriority();
+        if (lb.BLright == null)
+        {
+            lb.BLright = newHe;
+            newHe.BLparent = lb;
+        } else
+        {
+            Halfedge he = lb.BLright;
+            while (he.BLleft != null)
+            {
+                he = he.BLleft;
+            }
+            he.BLleft = newHe;
+            newHe.BLparent = he;
+        }
+        while (newHe.BLparent != null && newHe.BLpriority < newHe.BLparent.BLpriority)
+        {
+            BLrotateup(newHe);
+        }
+    }
+
+    private void BLremove(Halfedge he)
+    {
+        // Rotate the node down until it is a leaf
+        while (he.BLleft != null || he.BLright != null)
+        {
+            Halfedge child;
+            if (he.BLleft == null)
+            {
+                child = he.BLright;
+            } else if (he.BLright == null)
+            {
+                child = he.BLleft;
+            } else
+            {
+                child = he.BLleft.BLpriority < he.BLright.BLpriority ? he.BLleft : he.BLright;
+            }
+            BLrotateup(child);
+        }
+        Halfedge parent = he.BLparent;
+        if (parent == null)
+        {
+            ELroot = null;
+        } else if (parent.BLleft == he)
+        {
+            parent.BLleft = null;
+        } else
+        {
+            parent.BLright = null;
+        }
+        he.BLparent = null;
+    }
+
     private void pushGraphEdge(Site leftSite, Site rightSite, double x1, double y1, double x2, double y2)
     {
-        GraphEdge newEdge = new GraphEdge();
+        if (edgeConsumer != null)
+        {
+            edgeConsumer.accept(x1, y1, x2, y2, leftSite.sitenbr, rightSite.sitenbr);
+            return;
+        }
+        GraphEdge newEdge;
+        if (reuseWorkspace)
+        {
+            if (edgePoolUsed == edgePool.length)
+            {
+                edgePool = Arrays.copyOf(edgePool, edgePoolUsed * 2);
+            }
+            newEdge = edgePool[edgePoolUsed];
+            if (newEdge == null)
+            {
+                newEdge = new GraphEdge();
+                edgePool[edgePoolUsed] = newEdge;
+            }
+            edgePoolUsed++;
+        } else
+        {
+            newEdge = new GraphEdge();
+        }
         allEdges.add(newEdge);
         newEdge.x1 = x1;
         newEdge.y1 = y1;
@@ -701,6 +1357,8 @@ public class Voronoi
             return;
         }
         clip_line(e);
+        // Both halfedges of this edge have been deleted, the edge is no longer needed
+        freeEdge(e);
     }
 
     /* returns 1 if p is to right of halfedge e */
@@ -845,7 +1503,7 @@ public class Voronoi
 
         // create a new site at the point of intersection - this is a new vector
         // event waiting to happen
-        v = new Site();
+        v = newSite();
         v.x = xint;
         v.y = yint;
         return (v);
@@ -860,7 +1518,6 @@ public class Voronoi
     {
         Site newsite, bot, top, temp, p;
         Site v;
-        Point2D newintstar = null;
         int pm;
         Halfedge lbnd, rbnd, llbnd, rrbnd, bisector;
         Edge e;
@@ -875,14 +1532,14 @@ public class Voronoi
         {
             if (!PQempty())
             {
-                newintstar = PQ_min();
+                PQ_min();
             }
             // if the lowest site has a smaller y value than the lowest vector
             // intersection,
             // process the site otherwise process the vector intersection
 
             if (newsite != null
-                    && (PQempty() || newsite.y < newintstar.getY() || (newsite.y == newintstar.getY() && newsite.x < newintstar.getY())))
+                    && (PQempty() || newsite.y < PQminY || (newsite.y == PQminY && newsite.x < PQminY)))
             {
                 /* new site is smallest -this is a site event */
                 // get the first HalfEdge to the LEFT of the new site
@@ -0,0 +1,418 @@
+package be.humphreys.simplevoronoi;
+
+import java.awt.geom.Path2D;
+import java.util.Arrays;
+
+/**
+ * The cell of every site as a closed polygon within the bounding box. The rings are
+ * counterclockwise (in a y up coordinate system) and include the parts of the border and
+ * the corners of the box that belong to the cell. Sites whose cell is outside of the box
+ * have an empty ring.
+ *
+ * <p>The rings are assembled from the topology of the sweep: at every vertex the next edge
+ * of a cell is found directly, so building all cells takes O(n) time. The points of the
+ * rings are the vertices of a {@link VoronoiMesh}, followed by the corners of the box.
+ *
+ * <p>The sites have to be distinct. For sites at the same place the sweep reports bisectors
+ * that do not exist, and the cells next to them are wrong.
+ *
+ * @see ArrayVoronoi#getCells()
+ */
+public final class VoronoiCells
+{
+    private final VoronoiMesh mesh;
+    // Ring of site s: ringVertex[ringStart[s]] to ringVertex[ringStart[s] + ringLength[s] - 1]
+    final int[] ringStart, ringLength;
+    int[] ringVertex;
+    // The edge of the mesh from each point to the next one of the ring, or -1 along the border
+    int[] ringEdge;
+
+    private VoronoiCells(VoronoiMesh mesh, int sites)
+    {
+        this.mesh = mesh;
+        ringStart = new int[sites];
+        ringLength = new int[sites];
+        ringVertex = new int[4 * sites + mesh.windowX.length];
+        ringEdge = new int[ringVertex.length];
+    }
+
+    /**
+     * @return the mesh whose vertices the rings refer to
+     */
+    public VoronoiMesh getMesh()
+    {
+        return mesh;
+    }
+
+    public int getSiteCount()
+    {
+        return ringStart.length;
+    }
+
+    /**
+     * @param site the index of the input site
+     * @return the amount of points of the ring of the site, 0 if its cell is empty
+     */
+    public int getPointCount(int site)
+    {
+        return ringLength[site];
+    }
+
+    /**
+     * @param site the index of the input site
+     * @param point the index of the point in the ring
+     * @return the vertex of the mesh, or the vertex count of the mesh plus the index of the corner of the box
+     */
+    public int getVertex(int site, int point)
+    {
+        return ringVertex[ringStart[site] + point];
+    }
+
+    public double getX(int site, int point)
+    {
+        int v = getVertex(site, point);
+        return v < mesh.vertexCount ? mesh.vertexX[v] : mesh.windowX[v - mesh.vertexCount];
+    }
+
+    public double getY(int site, int point)
+    {
+        int v = getVertex(site, point);
+        return v < mesh.vertexCount ? mesh.vertexY[v] : mesh.windowY[v - mesh.vertexCount];
+    }
+
+    /**
+     * @param site the index of the input site
+     * @return a new array with the coordinates of the ring, x and y of the first point first
+     */
+    public double[] getCoordinates(int site)
+    {
+        int count = getPointCount(site);
+        double[] coordinates = new double[2 * count];
+        for (int i = 0; i < count; i++)
+        {
+            coordinates[2 * i] = getX(site, i);
+            coordinates[2 * i + 1] = getY(site, i);
+        }
+        return coordinates;
+    }
+
+    /**
+     * @param site the index of the input site
+     * @return the closed outline of the cell, empty if the cell is empty
+     */
+    public Path2D.Double getPath(int site)
+    {
+        int count = getPointCount(site);
+        Path2D.Double path = new Path2D.Double(Path2D.WIND_NON_ZERO, count + 1);
+        if (count > 0)
+        {
+            path.moveTo(getX(site, 0), getY(site, 0));
+            for (int i = 1; i < count; i++)
+            {
+                path.lineTo(getX(site, i), getY(site, i));
+            }
+            path.closePath();
+        }
+        return path;
+    }
+
+    /*
+     * The cells of the latest diagram of the sweep, clipped to the window of the mesh.
+     */
+    static VoronoiCells build(ArrayVoronoi sweep, VoronoiMesh mesh, int sites)
+    {
+        VoronoiCells cells = new VoronoiCells(mesh, sites);
+        new Builder(sweep, mesh, sites).build(cells);
+        return cells;
+    }
+
+    private void addVertex(int size, int v, int edge)
+    {
+        if (size == ringVertex.length)
+        {
+            ringVertex = Arrays.copyOf(ringVertex, 2 * size);
+            ringEdge = Arrays.copyOf(ringEdge, 2 * size);
+        }
+        ringVertex[size] = v;
+        ringEdge[size] = edge;
+    }
+
+    /*
+     * Every bisector has two halves, one for the cell on each side: half 2 * e + side. The
+     * halves know where their cell runs onto the bisector and which half follows when the cell
+     * is traversed counterclockwise, so that walking a cell only reads these arrays.
+     */
+    private static final class Builder
+    {
+        final ArrayVoronoi sweep;
+        final VoronoiMesh mesh;
+        final int sites;
+        // Per half: the site in sweep order, the vertex of the sweep where the cell starts, the next half of the cell or -1
+        final int[] halfSite, halfFrom, halfNext;
+        // Per bisector: true if the cell of side 0 runs from the low to the high end
+        final boolean[] forward;
+        // The halves of each site in sweep order, in no particular order
+        final int[] siteStart;
+        final int[] siteHalves;
+        // Scratch: the halves of the current cell in counterclockwise order
+        int[] ring = new int[16];
+
+        Builder(ArrayVoronoi sweep, VoronoiMesh mesh, int sites)
+        {
+            this.sweep = sweep;
+            this.mesh = mesh;
+            this.sites = sites;
+            int bisectors = sweep.getBisectorCount();
+            halfSite = new int[2 * bisectors];
+            halfFrom = new int[2 * bisectors];
+            halfNext = new int[2 * bisectors];
+            Arrays.fill(halfNext, -1);
+            forward = new boolean[bisectors];
+            // The (up to) 3 bisectors that meet at each vertex of the sweep
+            int[] vertexBisectors = new int[3 * sweep.getVertexCount()];
+            Arrays.fill(vertexBisectors, -1);
+            siteStart = new int[sites + 1];
+            for (int e = 0; e < bisectors; e++)
+            {
+                forward[e] = isForward(e);
+                int lowSide = sweep.getBisectorA(e) == 1.0 && sweep.getBisectorB(e) >= 0.0 ? 1 : 0;
+                int low = sweep.getBisectorEnd(e, lowSide);
+                int high = sweep.getBisectorEnd(e, 1 - lowSide);
+                // The cell on the other side runs the opposite way
+                halfFrom[2 * e] = forward[e] ? low : high;
+                halfFrom[2 * e + 1] = forward[e] ? high : low;
+                for (int side = 0; side < 2; side++)
+                {
+                    int site = sweep.getBisectorSweepSite(e, side);
+                    halfSite[2 * e + side] = site;
+                    siteStart[site + 1]++;
+                    int v = sweep.getBisectorEnd(e, side);
+                    if (v >= 0)
+                    {
+                        int k = 3 * v;
+                        while (k < 3 * v + 2 && vertexBisectors[k] >= 0)
+                        {
+                            k++;
+                        }
+                        vertexBisectors[k] = e;
+                    }
+                }
+            }
+            // At a vertex, a cell runs off one of its bisectors onto the other
+            for (int v = 0; v < vertexBisectors.length / 3; v++)
+            {
+                for (int i = 3 * v; i < 3 * v + 3 && vertexBisectors[i] >= 0; i++)
+                {
+                    for (int j = 3 * v; j < 3 * v + 3 && vertexBisectors[j] >= 0; j++)
+                    {
+                        for (int side = 0; side < 2 && i != j; side++)
+                        {
+                            int h = 2 * vertexBisectors[i] + side;
+                            int g = 2 * vertexBisectors[j];
+                            g += halfSite[g] == halfSite[h] ? 0 : 1;
+                            if (halfSite[g] == halfSite[h] && halfFrom[h] != v && halfFrom[g] == v)
+                            {
+                                halfNext[h] = g;
+                            }
+                        }
+                    }
+                }
+            }
+            for (int s = 0; s < sites; s++)
+            {
+                siteStart[s + 1] += siteStart[s];
+            }
+            siteHalves = new int[siteStart[sites]];
+            int[] fill = Arrays.copyOf(siteStart, sites);
+            for (int h = 0; h < halfSite.length; h++)
+            {
+                siteHalves[fill[halfSite[h]]++] = h;
+            }
+        }
+
+        /*
+         * True if the cell of side 0 runs along the bisector from its low to its high end when
+         * it is traversed counterclockwise, that is in the direction of (q - p) turned left.
+         */
+        private boolean isForward(int e)
+        {
+            double px = sweep.getBisectorSiteX(e, 0);
+            double py = sweep.getBisectorSiteY(e, 0);
+            double qx = sweep.getBisectorSiteX(e, 1);
+            double qy = sweep.getBisectorSiteY(e, 1);
+            boolean byY = sweep.getBisectorA(e) == 1.0;
+            double dx = byY ? -sweep.getBisectorB(e) : 1.0;
+            double dy = byY ? 1.0 : -sweep.getBisectorA(e);
+            return dx * -(qy - py) + dy * (qx - px) > 0;
+        }
+
+        void build(VoronoiCells cells)
+        {
+            // Neighbouring cells share their bisectors, so the cells are built in the order of the sweep
+            int size = 0;
+            for (int i = 0; i < sites; i++)
+            {
+                int s = sweep.getSweepSite(i);
+                cells.ringStart[s] = size;
+                size = addCell(cells, i, size);
+                cells.ringLength[s] = size - cells.ringStart[s];
+            }
+        }
+
+        // Collects the halves of the site in counterclockwise order, returns their count
+        private int collectRing(int site)
+        {
+            int degree = siteStart[site + 1] - siteStart[site];
+            if (ring.length < degree)
+            {
+                ring = new int[2 * degree];
+            }
+            // An unbounded cell starts at the half that comes from infinity
+            int first = siteHalves[siteStart[site]];
+            for (int i = siteStart[site]; i < siteStart[site + 1]; i++)
+            {
+                if (halfFrom[siteHalves[i]] < 0)
+                {
+                    first = siteHalves[i];
+                    break;
+                }
+            }
+            int count = 0;
+            for (int h = first; h >= 0 && count < degree; h = halfNext[h])
+            {
+                ring[count++] = h;
+                if (halfNext[h] == first)
+                {
+                    break;
+                }
+            }
+            return count;
+        }
+
+        private int addCell(VoronoiCells cells, int site, int size)
+        {
+            int m = mesh.windowX.length;
+            int corners = mesh.vertexCount;
+            if (siteStart[site + 1] == siteStart[site])
+            {
+                // The only site
+                return addWindow(cells, size, m, corners);
+            }
+            int count = collectRing(site);
+
+            // Start at a half that enters the window
+            int start = -1;
+            boolean inside = false;
+            for (int i = 0; i < count && start < 0; i++)
+            {
+                int edge = mesh.bisectorEdge[ring[i] >> 1];
+                if (edge >= 0)
+                {
+                    inside = true;
+                    if (mesh.isBorderVertex(startVertex(ring[i], edge)))
+                    {
+                        start = i;
+                    }
+                }
+            }
+            if (!inside)
+            {
+                // No edge of the cell is in the window: it covers the window or nothing of it
+                if (!contains(count, mesh.windowX[0], mesh.windowY[0]))
+                {
+                    return size;
+                }
+                return addWindow(cells, size, m, corners);
+            }
+
+            double exit = Double.NaN;
+            double firstEntry = Double.NaN;
+            for (int j = 0; j < count; j++)
+            {
+                int h = ring[(Math.max(start, 0) + j) % count];
+                int edge = mesh.bisectorEdge[h >> 1];
+                if (edge < 0)
+                {
+                    continue;
+                }
+                int from = startVertex(h, edge);
+                int to = from == mesh.edgeVertex1[edge] ? mesh.edgeVertex2[edge] : mesh.edgeVertex1[edge];
+                if (mesh.isBorderVertex(from))
+                {
+                    double entry = mesh.vertexBorder[from];
+                    if (Double.isNaN(firstEntry))
+                    {
+                        firstEntry = entry;
+                    } else
+                    {
+                        size = addCorners(cells, size, exit, entry, m, corners);
+                    }
+                }
+                cells.addVertex(size++, from, edge);
+                if (mesh.isBorderVertex(to))
+                {
+                    cells.addVertex(size++, to, -1);
+                    exit = mesh.vertexBorder[to];
+                }
+            }
+            if (!Double.isNaN(firstEntry))
+            {
+                size = addCorners(cells, size, exit, firstEntry, m, corners);
+            }
+            return size;
+        }
+
+        // The vertex of the mesh where the cell of the half runs onto the edge
+        private int startVertex(int h, int edge)
+        {
+            return forward[h >> 1] == ((h & 1) == 0) ? mesh.edgeVertex1[edge] : mesh.edgeVertex2[edge];
+        }
+
+        // The cell covers the whole window
+        private int addWindow(VoronoiCells cells, int size, int m, int corners)
+        {
+            for (int j = 0; j < m; j++)
+            {
+                cells.addVertex(size++, corners + j, -1);
+            }
+            return size;
+        }
+
+        // The corners of the window from the border position exit counterclockwise to entry
+        private int addCorners(VoronoiCells cells, int size, double exit, double entry, int m, int corners)
+        {
+            int from = (int) exit;
+            int to = (int) entry;
+            if (from == to && entry >= exit)
+            {
+                return size;
+            }
+            int j = from;
+            do
+            {
+                j = j + 1 == m ? 0 : j + 1;
+                cells.addVertex(size++, corners + j, -1);
+            } while (j != to);
+            return size;
+        }
+
+        // True if the point is on the side of the site of all bisectors of the current cell
+        private boolean contains(int count, double x, double y)
+        {
+            for (int i = 0; i < count; i++)
+            {
+                int e = ring[i] >> 1;
+                int side = ring[i] & 1;
+                double px = sweep.getBisectorSiteX(e, side);
+                double py = sweep.getBisectorSiteY(e, side);
+                double qx = sweep.getBisectorSiteX(e, 1 - side);
+                double qy = sweep.getBisectorSiteY(e, 1 - side);
+                if ((x - (px + qx) * 0.5) * (qx - px) + (y - (py + qy) * 0.5) * (qy - py) > 0)
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
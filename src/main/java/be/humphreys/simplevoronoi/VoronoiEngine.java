@@ -0,0 +1,274 @@
+package be.humphreys.simplevoronoi;
+
+import java.awt.Shape;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * A thread safe entry point to the sweep. An engine only holds its configuration, which
+ * cannot change. Every call of {@link #compute(double[], double[], double, double, double, double)}
+ * keeps its state in a context of its own, so one engine can be shared by any amount of
+ * threads, for example by all request threads of a server.
+ *
+ * <p>The edges are the ones of {@link Voronoi#generateVoronoi(double[], double[], double, double, double, double)}
+ * for the same input. The input arrays are read, never modified, and must not be changed
+ * while a computation on them runs.
+ */
+public final class VoronoiEngine
+{
+    private final double minDistanceBetweenSites;
+    private final EventQueue eventQueue;
+    private final BeachLine beachLine;
+
+    /**
+     * Create an engine with the default event queue and beach line.
+     *
+     * @param minDistanceBetweenSites edges between sites closer than this are dropped
+     */
+    public VoronoiEngine(double minDistanceBetweenSites)
+    {
+        this(minDistanceBetweenSites, EventQueue.BUCKET, BeachLine.HASH);
+    }
+
+    /**
+     * @param minDistanceBetweenSites edges between sites closer than this are dropped
+     * @param eventQueue the implementation of the vertex event queue
+     * @param beachLine the structure used to locate new sites on the beach line
+     */
+    public VoronoiEngine(double minDistanceBetweenSites, EventQueue eventQueue, BeachLine beachLine)
+    {
+        if (eventQueue == null)
+        {
+            throw new NullPointerException("eventQueue");
+        }
+        if (beachLine == null)
+        {
+            throw new NullPointerException("beachLine");
+        }
+        this.minDistanceBetweenSites = minDistanceBetweenSites;
+        this.eventQueue = eventQueue;
+        this.beachLine = beachLine;
+    }
+
+    public double getMinDistanceBetweenSites()
+    {
+        return minDistanceBetweenSites;
+    }
+
+    public EventQueue getEventQueue()
+    {
+        return eventQueue;
+    }
+
+    public BeachLine getBeachLine()
+    {
+        return beachLine;
+    }
+
+    /**
+     *
+     * @param xValuesIn Array of X values for each site.
+     * @param yValuesIn Array of Y values for each site. Must be identical length to yValuesIn
+     * @param minX The minimum X of the bounding box around the voronoi
+     * @param maxX The maximum X of the bounding box around the voronoi
+     * @param minY The minimum Y of the bounding box around the voronoi
+     * @param maxY The maximum Y of the bounding box around the voronoi
+     * @return The generated voronoi edges
+     */
+    public List<GraphEdge> compute(double[] xValuesIn, double[] yValuesIn,
+            double minX, double maxX, double minY, double maxY)
+    {
+        ArrayVoronoi context = newContext();
+        context.generateVoronoi(xValuesIn, yValuesIn, minX, maxX, minY, maxY);
+        return context.getGraphEdges();
+    }
+
+    /**
+     * Same as {@link #compute(double[], double[], double, double, double, double)}, but the
+     * edges are returned in primitive arrays instead of one GraphEdge per edge.
+     *
+     * @return The generated voronoi edges, owned by the caller
+     */
+    public EdgeBuffer computeEdges(double[] xValuesIn, double[] yValuesIn,
+            double minX, double maxX, double minY, double maxY)
+    {
+        ArrayVoronoi context = newContext();
+        context.generateVoronoi(xValuesIn, yValuesIn, minX, maxX, minY, maxY);
+        // The context is not used again, so its buffer can be handed out
+        return context.getEdges();
+    }
+
+    /**
+     * Compute the diagram as an indexed mesh, see {@link ArrayVoronoi#getMesh()}.
+     *
+     * @return The generated voronoi mesh, owned by the caller
+     */
+    public VoronoiMesh computeMesh(double[] xValuesIn, double[] yValuesIn,
+            double minX, double maxX, double minY, double maxY)
+    {
+        ArrayVoronoi context = newContext();
+        context.generateVoronoi(xValuesIn, yValuesIn, minX, maxX, minY, maxY);
+        return context.getMesh();
+    }
+
+    /**
+     * Compute the cell of every site, see {@link ArrayVoronoi#getCells()}.
+     *
+     * @return The generated voronoi cells, owned by the caller
+     */
+    public VoronoiCells computeCells(double[] xValuesIn, double[] yValuesIn,
+            double minX, double maxX, double minY, double maxY)
+    {
+        ArrayVoronoi context = newContext();
+        context.generateVoronoi(xValuesIn, yValuesIn, minX, maxX, minY, maxY);
+        return context.getCells();
+    }
+
+    /**
+     * Compute the edges clipped to a convex shape, see
+     * {@link ArrayVoronoi#generateVoronoi(double[], double[], Shape)}.
+     *
+     * @return The generated voronoi edges, owned by the caller
+     */
+    public EdgeBuffer computeEdges(double[] xValuesIn, double[] yValuesIn, Shape window)
+    {
+        ArrayVoronoi context = newContext();
+        context.generateVoronoi(xValuesIn, yValuesIn, window);
+        return context.getEdges();
+    }
+
+    /**
+     * Compute the cell of every site, clipped to a convex shape and closed along its outline.
+     *
+     * @return The generated voronoi cells, owned by the caller
+     * @see ArrayVoronoi#generateVoronoi(double[], double[], Shape)
+     */
+    public VoronoiCells computeCells(double[] xValuesIn, double[] yValuesIn, Shape window)
+    {
+        ArrayVoronoi context = newContext();
+        context.generateVoronoi(xValuesIn, yValuesIn, window);
+        return context.getCells();
+    }
+
+    /**
+     * Compute the cells as a doubly connected edge list, see {@link ArrayVoronoi#getHalfEdges()}.
+     *
+     * @return The generated half edges, owned by the caller
+     */
+    public VoronoiHalfEdges computeHalfEdges(double[] xValuesIn, double[] yValuesIn,
+            double minX, double maxX, double minY, double maxY)
+    {
+        ArrayVoronoi context = newContext();
+        context.generateVoronoi(xValuesIn, yValuesIn, minX, maxX, minY, maxY);
+        return context.getHalfEdges();
+    }
+
+    /**
+     * Compute the Delaunay triangulation of the sites, see {@link ArrayVoronoi#getTriangles()}.
+     * The edges of the diagram are not clipped or stored.
+     *
+     * @param xValuesIn Array of X values for each site.
+     * @param yValuesIn Array of Y values for each site. Must be identical length to yValuesIn
+     * @return the indices of the sites of every triangle, three per triangle
+     */
+    public int[] computeTriangles(double[] xValuesIn, double[] yValuesIn)
+    {
+        ArrayVoronoi context = newContext();
+        context.triangulate(xValuesIn, yValuesIn);
+        return context.getTriangles();
+    }
+
+    /**
+     * Same as {@link #compute(double[], double[], double, double, double, double)}, but every
+     * edge is handed to the consumer as soon as it is clipped. The consumer is called on the
+     * calling thread.
+     *
+     * @param consumer receives the generated voronoi edges
+     */
+    public void compute(double[] xValuesIn, double[] yValuesIn,
+            double minX, double maxX, double minY, double maxY, EdgeConsumer consumer)
+    {
+        newContext().generateVoronoi(xValuesIn, yValuesIn, minX, maxX, minY, maxY, consumer);
+    }
+
+    /**
+     * Compute independent diagrams concurrently. Each diagram is computed by one task on
+     * the executor, the calling thread waits for all of them.
+     *
+     * @param requests the diagrams to compute
+     * @param executor runs the computations, for example a pool of the server
+     * @return the edges of every request, in the iteration order of requests
+     */
+    public List<List<GraphEdge>> computeAll(Collection<Request> requests, Executor executor)
+    {
+        List<CompletableFuture<List<GraphEdge>>> results = new ArrayList<>(requests.size());
+        for (Request request : requests)
+        {
+            results.add(CompletableFuture.supplyAsync(() -> compute(request.xValues, request.yValues,
+                    request.minX, request.maxX, request.minY, request.maxY), executor));
+        }
+        List<List<GraphEdge>> edges = new ArrayList<>(results.size());
+        for (CompletableFuture<List<GraphEdge>> result : results)
+        {
+            try
+            {
+                edges.add(result.join());
+            } catch (CompletionException e)
+            {
+                if (e.getCause() instanceof RuntimeException)
+                {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return edges;
+    }
+
+    // The mutable state of a single computation
+    private ArrayVoronoi newContext()
+    {
+        ArrayVoronoi context = new ArrayVoronoi(minDistanceBetweenSites);
+        context.setEventQueue(eventQueue);
+        context.setBeachLine(beachLine);
+        return context;
+    }
+
+    /**
+     * The sites and the bounding box of one diagram of {@link VoronoiEngine#computeAll(Collection, Executor)}.
+     */
+    public static final class Request
+    {
+        final double[] xValues, yValues;
+        final double minX, maxX, minY, maxY;
+
+        /**
+         *
+         * @param xValuesIn Array of X values for each site.
+         * @param yValuesIn Array of Y values for each site. Must be identical length to yValuesIn
+         * @param minX The minimum X of the bounding box around the voronoi
+         * @param maxX The maximum X of the bounding box around the voronoi
+         * @param minY The minimum Y of the bounding box around the voronoi
+         * @param maxY The maximum Y of the bounding box around the voronoi
+         */
+        public Request(double[] xValuesIn, double[] yValuesIn,
+                double minX, double maxX, double minY, double maxY)
+        {
+            if (xValuesIn.length != yValuesIn.length)
+            {
+                throw new IllegalArgumentException("xValuesIn and yValuesIn differ in length: "
+                        + xValuesIn.length + " vs. " + yValuesIn.length);
+            }
+            this.xValues = xValuesIn;
+            this.yValues = yValuesIn;
+            this.minX = minX;
+            this.maxX = maxX;
+            this.minY = minY;
+            this.maxY = maxY;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package be.humphreys.simplevoronoi;
+
+import java.util.Arrays;
+
+/**
+ * The diagram within the bounding box as a doubly connected edge list in flat arrays. Every
+ * edge between two points of the cells is split into two half edges of opposite direction,
+ * the twins. The half edges of a cell form a counterclockwise cycle of next and prev links.
+ * Along the border the twins belong to the outside, which has the site -1 and runs clockwise.
+ *
+ * <p>Walking a cell, going to a neighbouring cell or around a vertex is a lookup in one of
+ * the arrays per step:
+ * <pre>
+ * // The neighbours of a site
+ * int h = dcel.getSiteHalfEdge(site);
+ * do {
+ *     int neighbour = dcel.getSite(dcel.getTwin(h));
+ *     h = dcel.getNext(h);
+ * } while (h != dcel.getSiteHalfEdge(site));
+ * </pre>
+ *
+ * <p>The vertices are the ones of {@link VoronoiCells}: the vertices of the mesh followed
+ * by the corners of the box.
+ *
+ * @see ArrayVoronoi#getHalfEdges()
+ */
+public final class VoronoiHalfEdges
+{
+    private final VoronoiCells cells;
+    private final int[] twin, next, prev, origin, site, edge;
+    // One half edge per site and one starting at each vertex, or -1
+    private final int[] siteHalfEdge, vertexHalfEdge;
+
+    private VoronoiHalfEdges(VoronoiCells cells, int halfEdges, int vertices)
+    {
+        this.cells = cells;
+        twin = new int[halfEdges];
+        next = new int[halfEdges];
+        prev = new int[halfEdges];
+        origin = new int[halfEdges];
+        site = new int[halfEdges];
+        edge = new int[halfEdges];
+        siteHalfEdge = new int[cells.getSiteCount()];
+        vertexHalfEdge = new int[vertices];
+        Arrays.fill(twin, -1);
+        Arrays.fill(vertexHalfEdge, -1);
+    }
+
+    /**
+     * @return the cells the half edges are made of
+     */
+    public VoronoiCells getCells()
+    {
+        return cells;
+    }
+
+    public int getHalfEdgeCount()
+    {
+        return twin.length;
+    }
+
+    public int getTwin(int halfEdge)
+    {
+        return twin[halfEdge];
+    }
+
+    public int getNext(int halfEdge)
+    {
+        return next[halfEdge];
+    }
+
+    public int getPrev(int halfEdge)
+    {
+        return prev[halfEdge];
+    }
+
+    /**
+     * @param halfEdge the index of the half edge
+     * @return the vertex the half edge starts at
+     */
+    public int getOrigin(int halfEdge)
+    {
+        return origin[halfEdge];
+    }
+
+    /**
+     * @param halfEdge the index of the half edge
+     * @return the index of the input site of the cell left of the half edge, -1 outside of the box
+     */
+    public int getSite(int halfEdge)
+    {
+        return site[halfEdge];
+    }
+
+    /**
+     * @param halfEdge the index of the half edge
+     * @return the edge of the {@link VoronoiMesh} the half edge lies on, -1 along the border
+     */
+    public int getEdge(int halfEdge)
+    {
+        return edge[halfEdge];
+    }
+
+    /**
+     * @param site the index of the input site
+     * @return a half edge of the cell of the site, -1 if the cell is empty
+     */
+    public int getSiteHalfEdge(int site)
+    {
+        return siteHalfEdge[site];
+    }
+
+    /**
+     * The half edges around a vertex are getTwin(getPrev(h)) after h.
+     *
+     * @param vertex the index of the vertex
+     * @return a half edge that starts at the vertex, -1 if no cell uses the vertex
+     */
+    public int getVertexHalfEdge(int vertex)
+    {
+        return vertexHalfEdge[vertex];
+    }
+
+    public int getVertexCount()
+    {
+        return vertexHalfEdge.length;
+    }
+
+    public double getVertexX(int vertex)
+    {
+        VoronoiMesh mesh = cells.getMesh();
+        return vertex < mesh.vertexCount ? mesh.vertexX[vertex] : mesh.windowX[vertex - mesh.vertexCount];
+    }
+
+    public double getVertexY(int vertex)
+    {
+        VoronoiMesh mesh = cells.getMesh();
+        return vertex < mesh.vertexCount ? mesh.vertexY[vertex] : mesh.windowY[vertex - mesh.vertexCount];
+    }
+
+    /*
+     * Links the rings of the cells. The twins of edges of the mesh are found through the
+     * edge, the ones along the border are new half edges of the outside.
+     */
+    static VoronoiHalfEdges build(VoronoiCells cells)
+    {
+        VoronoiMesh mesh = cells.getMesh();
+        int sites = cells.getSiteCount();
+        int inner = 0;
+        int border = 0;
+        for (int s = 0; s < sites; s++)
+        {
+            for (int i = cells.ringStart[s]; i < cells.ringStart[s] + cells.ringLength[s]; i++)
+            {
+                inner++;
+                border += cells.ringEdge[i] < 0 ? 1 : 0;
+            }
+        }
+        int vertices = mesh.vertexCount + mesh.windowX.length;
+        VoronoiHalfEdges dcel = new VoronoiHalfEdges(cells, inner + border, vertices);
+
+        // The half edge of each direction of an edge of the mesh, from vertex 1 to 2 first
+        int[] edgeHalf = new int[2 * mesh.edgeCount];
+        Arrays.fill(edgeHalf, -1);
+        int h = 0;
+        for (int s = 0; s < sites; s++)
+        {
+            int first = h;
+            int length = cells.ringLength[s];
+            dcel.siteHalfEdge[s] = length > 0 ? first : -1;
+            for (int i = 0; i < length; i++, h++)
+            {
+                int point = cells.ringStart[s] + i;
+                int v = cells.ringVertex[point];
+                int e = cells.ringEdge[point];
+                dcel.origin[h] = v;
+                dcel.site[h] = s;
+                dcel.edge[h] = e;
+                dcel.next[h] = i + 1 == length ? first : h + 1;
+                dcel.prev[h] = i == 0 ? first + length - 1 : h - 1;
+                if (dcel.vertexHalfEdge[v] < 0)
+                {
+                    dcel.vertexHalfEdge[v] = h;
+                }
+                if (e >= 0)
+                {
+                    edgeHalf[2 * e + (v == mesh.edgeVertex1[e] ? 0 : 1)] = h;
+                }
+            }
+        }
+        for (int e = 0; e < mesh.edgeCount; e++)
+        {
+            int a = edgeHalf[2 * e];
+            int b = edgeHalf[2 * e + 1];
+            if (a >= 0 && b >= 0)
+            {
+                dcel.twin[a] = b;
+                dcel.twin[b] = a;
+            }
+        }
+
+        // The outside: the twin of a border piece from a to b runs from b to a
+        int[] outerFrom = new int[vertices];
+        int o = inner;
+        for (h = 0; h < inner; h++)
+        {
+            if (dcel.edge[h] < 0)
+            {
+                dcel.twin[h] = o;
+                dcel.twin[o] = h;
+                dcel.origin[o] = dcel.origin[dcel.next[h]];
+                dcel.site[o] = -1;
+                dcel.edge[o] = -1;
+                outerFrom[dcel.origin[o]] = o;
+                o++;
+            }
+        }
+        for (o = inner; o < inner + border; o++)
+        {
+            int n = outerFrom[dcel.origin[dcel.twin[o]]];
+            dcel.next[o] = n;
+            dcel.prev[n] = o;
+        }
+        return dcel;
+    }
+}
@@ -0,0 +1,325 @@
+package be.humphreys.simplevoronoi;
+
+import java.util.Arrays;
+
+/**
+ * A Voronoi diagram as an indexed mesh: every vertex is stored once and the edges refer to
+ * their two vertices by index. The vertices are the vertices of the sweep that lie inside
+ * the bounding box, followed by the points where edges leave the box. Each edge is a
+ * bisector of the sweep clipped to the box, so every pair of neighbouring sites has at most
+ * one edge, and edges that are entirely outside of the box are left out.
+ *
+ * <p>Vertices inside the box have the coordinates the sweep computed for them. The ends of
+ * a {@link GraphEdge} are recomputed from the line of the edge and may differ from them in
+ * the last bits.
+ *
+ * @see ArrayVoronoi#getMesh()
+ */
+public final class VoronoiMesh
+{
+    // Vertices; border holds the position on the window of a clip point, NaN for a vertex of the sweep
+    double[] vertexX, vertexY, vertexBorder;
+    int vertexCount;
+
+    // Edges from the low to the high end of the line parametrization of their bisector
+    int[] edgeVertex1, edgeVertex2, edgeSite1, edgeSite2;
+    int edgeCount;
+
+    // The convex window the diagram is clipped to, counterclockwise
+    final double[] windowX, windowY;
+    // The edge of each bisector of the sweep, or -1 if it is outside of the window
+    final int[] bisectorEdge;
+
+    private VoronoiMesh(double[] windowX, double[] windowY, int bisectors)
+    {
+        this.windowX = windowX;
+        this.windowY = windowY;
+        bisectorEdge = new int[bisectors];
+        vertexX = new double[2 * bisectors + 4];
+        vertexY = new double[vertexX.length];
+        vertexBorder = new double[vertexX.length];
+        edgeVertex1 = new int[bisectors];
+        edgeVertex2 = new int[bisectors];
+        edgeSite1 = new int[bisectors];
+        edgeSite2 = new int[bisectors];
+    }
+
+    public int getVertexCount()
+    {
+        return vertexCount;
+    }
+
+    public double getVertexX(int vertex)
+    {
+        return vertexX[vertex];
+    }
+
+    public double getVertexY(int vertex)
+    {
+        return vertexY[vertex];
+    }
+
+    /**
+     * @param vertex the index of the vertex
+     * @return true if the vertex is a point where an edge is clipped by the border
+     */
+    public boolean isBorderVertex(int vertex)
+    {
+        return !Double.isNaN(vertexBorder[vertex]);
+    }
+
+    public int getEdgeCount()
+    {
+        return edgeCount;
+    }
+
+    public int getEdgeVertex1(int edge)
+    {
+        return edgeVertex1[edge];
+    }
+
+    public int getEdgeVertex2(int edge)
+    {
+        return edgeVertex2[edge];
+    }
+
+    /**
+     * @param edge the index of the edge
+     * @return the index of the input site on the one side of the edge
+     */
+    public int getEdgeSite1(int edge)
+    {
+        return edgeSite1[edge];
+    }
+
+    /**
+     * @param edge the index of the edge
+     * @return the index of the input site on the other side of the edge
+     */
+    public int getEdgeSite2(int edge)
+    {
+        return edgeSite2[edge];
+    }
+
+    /**
+     * @return a new array with the coordinates of all vertices, x and y of the first vertex first
+     */
+    public double[] getVertexCoordinates()
+    {
+        double[] coordinates = new double[2 * vertexCount];
+        for (int i = 0; i < vertexCount; i++)
+        {
+            coordinates[2 * i] = vertexX[i];
+            coordinates[2 * i + 1] = vertexY[i];
+        }
+        return coordinates;
+    }
+
+    /**
+     * @return a new array with the two vertex indices of every edge, as for an indexed line list
+     */
+    public int[] getEdgeIndices()
+    {
+        int[] indices = new int[2 * edgeCount];
+        for (int i = 0; i < edgeCount; i++)
+        {
+            indices[2 * i] = edgeVertex1[i];
+            indices[2 * i + 1] = edgeVertex2[i];
+        }
+        return indices;
+    }
+
+    /*
+     * The mesh of the latest diagram of the sweep, clipped to the box.
+     */
+    static VoronoiMesh build(ArrayVoronoi sweep, double minX, double maxX, double minY, double maxY)
+    {
+        return build(sweep, new double[] { minX, maxX, maxX, minX }, new double[] { minY, minY, maxY, maxY });
+    }
+
+    /*
+     * The mesh of the latest diagram of the sweep, clipped to a convex counterclockwise polygon.
+     */
+    static VoronoiMesh build(ArrayVoronoi sweep, double[] windowX, double[] windowY)
+    {
+        int bisectors = sweep.getBisectorCount();
+        VoronoiMesh mesh = new VoronoiMesh(windowX, windowY, bisectors);
+        int[] vertexIds = new int[sweep.getVertexCount()];
+        Arrays.fill(vertexIds, -1);
+        Clip clip = new Clip();
+        for (int e = 0; e < bisectors; e++)
+        {
+            mesh.bisectorEdge[e] = -1;
+            if (!clip.clip(sweep, e, windowX, windowY))
+            {
+                continue;
+            }
+            int edge = mesh.edgeCount++;
+            mesh.bisectorEdge[e] = edge;
+            mesh.edgeVertex1[edge] = mesh.addEnd(sweep, vertexIds, clip, 0);
+            mesh.edgeVertex2[edge] = mesh.addEnd(sweep, vertexIds, clip, 1);
+            mesh.edgeSite1[edge] = sweep.getBisectorSite(e, 0);
+            mesh.edgeSite2[edge] = sweep.getBisectorSite(e, 1);
+        }
+        return mesh;
+    }
+
+    private int addEnd(ArrayVoronoi sweep, int[] vertexIds, Clip clip, int end)
+    {
+        int v = clip.vertex[end];
+        if (v >= 0 && vertexIds[v] >= 0)
+        {
+            return vertexIds[v];
+        }
+        int id = vertexCount++;
+        if (v >= 0)
+        {
+            vertexIds[v] = id;
+            vertexX[id] = sweep.getVertexX(v);
+            vertexY[id] = sweep.getVertexY(v);
+            vertexBorder[id] = Double.NaN;
+        } else
+        {
+            vertexX[id] = clip.x[end];
+            vertexY[id] = clip.y[end];
+            vertexBorder[id] = clip.border[end];
+        }
+        return id;
+    }
+
+    /*
+     * Clips a bisector to a convex window (Cyrus-Beck). The bisector is parametrized like in
+     * clip_line: by y if a == 1, by x otherwise. End 0 is the end with the lower parameter.
+     */
+    static final class Clip
+    {
+        // Per end: the vertex of the sweep, or -1 for a clip point with its coordinates and border position
+        final int[] vertex = new int[2];
+        final double[] x = new double[2];
+        final double[] y = new double[2];
+        final double[] border = new double[2];
+        // The side of the bisector (ArrayVoronoi.LE or RE) at end 0
+        int lowSide;
+
+        boolean clip(ArrayVoronoi sweep, int e, double[] wx, double[] wy)
+        {
+            double a = sweep.getBisectorA(e);
+            double b = sweep.getBisectorB(e);
+            double c = sweep.getBisectorC(e);
+            if (Double.isNaN(a + b + c))
+            {
+                // Bisector of two sites at the same place
+                return false;
+            }
+            boolean byY = a == 1.0;
+            // P(t) = (px, py) + t * (dx, dy)
+            double px = byY ? c : 0.0;
+            double py = byY ? 0.0 : c;
+            double dx = byY ? -b : 1.0;
+            double dy = byY ? 1.0 : -a;
+            lowSide = byY && b >= 0.0 ? 1 : 0;
+
+            double tLow = Double.NEGATIVE_INFINITY;
+            double tHigh = Double.POSITIVE_INFINITY;
+            int edgeLow = -1, edgeHigh = -1;
+            int m = wx.length;
+            for (int j = 0; j < m; j++)
+            {
+                int k = j + 1 == m ? 0 : j + 1;
+                // Outward normal of the counterclockwise edge j
+                double nx = wy[k] - wy[j];
+                double ny = wx[j] - wx[k];
+                double num = (px - wx[j]) * nx + (py - wy[j]) * ny;
+                double den = dx * nx + dy * ny;
+                if (den == 0.0)
+                {
+                    if (num > 0.0)
+                    {
+                        return false;
+                    }
+                } else if (den < 0.0)
+                {
+                    double t = -num / den;
+                    if (t > tLow)
+                    {
+                        tLow = t;
+                        edgeLow = j;
+                    }
+                } else
+                {
+                    double t = -num / den;
+                    if (t < tHigh)
+                    {
+                        tHigh = t;
+                        edgeHigh = j;
+                    }
+                }
+            }
+
+            // The ends of the bisector that are vertices limit it further
+            int v = sweep.getBisectorEnd(e, lowSide);
+            vertex[0] = -1;
+            if (v >= 0)
+            {
+                double t = byY ? sweep.getVertexY(v) : sweep.getVertexX(v);
+                if (t > tLow)
+                {
+                    tLow = t;
+                    vertex[0] = v;
+                }
+            }
+            v = sweep.getBisectorEnd(e, 1 - lowSide);
+            vertex[1] = -1;
+            if (v >= 0)
+            {
+                double t = byY ? sweep.getVertexY(v) : sweep.getVertexX(v);
+                if (t < tHigh)
+                {
+                    tHigh = t;
+                    vertex[1] = v;
+                }
+            }
+            if (!(tLow < tHigh))
+            {
+                return false;
+            }
+            for (int end = 0; end < 2; end++)
+            {
+                if (vertex[end] < 0)
+                {
+                    int j = end == 0 ? edgeLow : edgeHigh;
+                    double t = end == 0 ? tLow : tHigh;
+                    point(a, b, c, byY, t, wx, wy, j, end);
+                }
+            }
+            return true;
+        }
+
+        // The point with parameter t, which is on edge j of the window
+        private void point(double a, double b, double c, boolean byY, double t, double[] wx, double[] wy, int j, int end)
+        {
+            int k = j + 1 == wx.length ? 0 : j + 1;
+            double px, py;
+            if (wy[j] == wy[k])
+            {
+                // Horizontal border, keep its y exactly
+                py = wy[j];
+                px = byY ? c - b * py : (c - py) / a;
+            } else if (wx[j] == wx[k])
+            {
+                px = wx[j];
+                py = byY ? (c - px) / b : c - a * px;
+            } else
+            {
+                px = byY ? c - b * t : t;
+                py = byY ? t : c - a * t;
+            }
+            x[end] = px;
+            y[end] = py;
+            double ex = wx[k] - wx[j];
+            double ey = wy[k] - wy[j];
+            double f = ((px - wx[j]) * ex + (py - wy[j]) * ey) / (ex * ex + ey * ey);
+            border[end] = j + Math.min(Math.max(f, 0.0), Math.nextDown(1.0));
+        }
+    }
+}
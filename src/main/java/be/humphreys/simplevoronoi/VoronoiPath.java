@@ -0,0 +1,252 @@
+package be.humphreys.simplevoronoi;
+
+import java.awt.Graphics2D;
+import java.awt.Shape;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.util.List;
+
+/**
+ * The edges of a diagram as one {@link Path2D}, so that it is stroked with one call to
+ * {@link Graphics2D#draw(Shape)} instead of a call per edge. The path is refilled in place
+ * when the diagram changes and keeps its arrays, so a refresh allocates nothing once the
+ * path has grown to the size of the diagram.
+ *
+ * <p>Optionally the edges are split into a grid of tiles with a path each, and
+ * {@link #draw(Graphics2D)} only strokes the tiles in the clip of the graphics. Edges that
+ * cross tiles are cut at the tile borders, so no part of an edge is stroked twice. The outer
+ * tiles reach to infinity, so edges outside of the grid are kept.
+ *
+ * <p>Instances are not thread safe.
+ */
+public final class VoronoiPath
+{
+    private final Path2D.Double path;
+    private final Path2D.Double[] tiles;
+    private final int columns, rows;
+    private final double minX, minY, tileWidth, tileHeight;
+    // The part of the edge that is clipped
+    private double t0, t1;
+
+    /**
+     * A single path for the whole diagram.
+     */
+    public VoronoiPath()
+    {
+        path = new Path2D.Double();
+        tiles = null;
+        columns = 1;
+        rows = 1;
+        minX = minY = 0;
+        tileWidth = tileHeight = Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * A path per tile of a grid.
+     *
+     * @param columns the amount of tiles across
+     * @param rows the amount of tiles down
+     * @param minX the left side of the grid
+     * @param maxX the right side of the grid
+     * @param minY the side of the first row of tiles
+     * @param maxY the side of the last row of tiles
+     */
+    public VoronoiPath(int columns, int rows, double minX, double maxX, double minY, double maxY)
+    {
+        path = new Path2D.Double();
+        tiles = new Path2D.Double[columns * rows];
+        for (int i = 0; i < tiles.length; i++)
+        {
+            tiles[i] = new Path2D.Double();
+        }
+        this.columns = columns;
+        this.rows = rows;
+        this.minX = minX;
+        this.minY = minY;
+        tileWidth = (maxX - minX) / columns;
+        tileHeight = (maxY - minY) / rows;
+    }
+
+    /**
+     * Replace the edges of the paths.
+     *
+     * @param edges the edges of the diagram
+     */
+    public void set(List<GraphEdge> edges)
+    {
+        reset();
+        for (GraphEdge e : edges)
+        {
+            add(e.x1, e.y1, e.x2, e.y2);
+        }
+    }
+
+    /**
+     * Replace the edges of the paths.
+     *
+     * @param edges the edges of the diagram
+     */
+    public void set(EdgeBuffer edges)
+    {
+        reset();
+        for (int i = 0; i < edges.size(); i++)
+        {
+            add(edges.getX1(i), edges.getY1(i), edges.getX2(i), edges.getY2(i));
+        }
+    }
+
+    /**
+     * Replace the edges of the paths.
+     *
+     * @param mesh the diagram
+     */
+    public void set(VoronoiMesh mesh)
+    {
+        reset();
+        for (int i = 0; i < mesh.edgeCount; i++)
+        {
+            int v1 = mesh.edgeVertex1[i], v2 = mesh.edgeVertex2[i];
+            add(mesh.vertexX[v1], mesh.vertexY[v1], mesh.vertexX[v2], mesh.vertexY[v2]);
+        }
+    }
+
+    /**
+     * @return the path of all edges; it is changed by the next set
+     */
+    public Path2D.Double getPath()
+    {
+        return path;
+    }
+
+    public int getColumns()
+    {
+        return columns;
+    }
+
+    public int getRows()
+    {
+        return rows;
+    }
+
+    /**
+     * @param column the column of the tile
+     * @param row the row of the tile
+     * @return the path of the parts of the edges in the tile; it is changed by the next set
+     */
+    public Path2D.Double getTile(int column, int row)
+    {
+        return tiles == null ? path : tiles[row * columns + column];
+    }
+
+    /**
+     * Stroke the edges with the current stroke and paint of the graphics. With tiles only
+     * the tiles that intersect the clip are stroked.
+     *
+     * @param g the graphics to draw on
+     */
+    public void draw(Graphics2D g)
+    {
+        Shape clip = g.getClip();
+        if (tiles == null || clip == null)
+        {
+            g.draw(path);
+            return;
+        }
+        Rectangle2D bounds = clip.getBounds2D();
+        // One more tile on each side for the width of the stroke
+        int c0 = Math.max(0, column(bounds.getMinX()) - 1);
+        int c1 = Math.min(columns - 1, column(bounds.getMaxX()) + 1);
+        int r0 = Math.max(0, row(bounds.getMinY()) - 1);
+        int r1 = Math.min(rows - 1, row(bounds.getMaxY()) + 1);
+        for (int r = r0; r <= r1; r++)
+        {
+            for (int c = c0; c <= c1; c++)
+            {
+                g.draw(tiles[r * columns + c]);
+            }
+        }
+    }
+
+    private void reset()
+    {
+        path.reset();
+        if (tiles != null)
+        {
+            for (Path2D.Double tile : tiles)
+            {
+                tile.reset();
+            }
+        }
+    }
+
+    private int column(double x)
+    {
+        return (int) Math.max(0, Math.min(columns - 1, Math.floor((x - minX) / tileWidth)));
+    }
+
+    private int row(double y)
+    {
+        return (int) Math.max(0, Math.min(rows - 1, Math.floor((y - minY) / tileHeight)));
+    }
+
+    private void add(double x1, double y1, double x2, double y2)
+    {
+        path.moveTo(x1, y1);
+        path.lineTo(x2, y2);
+        if (tiles == null)
+        {
+            return;
+        }
+        // An edge with zero dx or dy gets a single column or row, also on a tile border
+        int c0 = column(Math.min(x1, x2)), c1 = x1 == x2 ? c0 : column(Math.max(x1, x2));
+        int r0 = row(Math.min(y1, y2)), r1 = y1 == y2 ? r0 : row(Math.max(y1, y2));
+        if (c0 == c1 && r0 == r1)
+        {
+            tiles[r0 * columns + c0].moveTo(x1, y1);
+            tiles[r0 * columns + c0].lineTo(x2, y2);
+            return;
+        }
+        double dx = x2 - x1, dy = y2 - y1;
+        for (int r = r0; r <= r1; r++)
+        {
+            for (int c = c0; c <= c1; c++)
+            {
+                // Liang-Barsky against the tile, the outer tiles are open to the outside
+                double left = c == 0 ? Double.NEGATIVE_INFINITY : minX + c * tileWidth;
+                double right = c == columns - 1 ? Double.POSITIVE_INFINITY : minX + (c + 1) * tileWidth;
+                double top = r == 0 ? Double.NEGATIVE_INFINITY : minY + r * tileHeight;
+                double bottom = r == rows - 1 ? Double.POSITIVE_INFINITY : minY + (r + 1) * tileHeight;
+                t0 = 0;
+                t1 = 1;
+                if (clip(-dx, x1 - left) && clip(dx, right - x1) && clip(-dy, y1 - top) && clip(dy, bottom - y1)
+                        && t0 < t1)
+                {
+                    Path2D.Double tile = tiles[r * columns + c];
+                    tile.moveTo(x1 + t0 * dx, y1 + t0 * dy);
+                    tile.lineTo(x1 + t1 * dx, y1 + t1 * dy);
+                }
+            }
+        }
+    }
+
+    /*
+     * Narrow [t0, t1] to the side of one border, false if nothing is left. An edge that is
+     * parallel to the border is only tried in its one column or row, so it is kept there.
+     */
+    private boolean clip(double p, double q)
+    {
+        if (p == 0)
+        {
+            return true;
+        }
+        if (p < 0)
+        {
+            t0 = Math.max(t0, q / p);
+        }
+        else
+        {
+            t1 = Math.min(t1, q / p);
+        }
+        return t0 <= t1;
+    }
+}
@@ -0,0 +1,346 @@
+package be.humphreys.simplevoronoi;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Writes the site of every pixel of a raster, for example a territory map. The raster
+ * covers a rectangle of the plane: row 0 is at minY and column 0 at minX, and a pixel belongs
+ * to the cell that contains its centre.
+ *
+ * <p>The cells of {@link VoronoiCells} are convex, so every row of a cell is a single span
+ * between two of its edges. The rows are split into bands that are filled in parallel. The
+ * ends of a span are computed from the vertices of the edge in the same way for both cells
+ * of the edge, so the cells cover the raster without gaps or overlaps. Pixels outside of
+ * the window of the cells are {@link #NONE}.
+ *
+ * <p>A raster does not change after it is built and can be used by any amount of threads.
+ */
+public final class VoronoiRaster
+{
+    /** The label of pixels that are in no cell. */
+    public static final int NONE = -1;
+
+    // The largest array most virtual machines can allocate
+    private static final long MAX_PIXELS = Integer.MAX_VALUE - 8;
+
+    private final int width, height;
+    private final double minX, minY, pixelWidth, pixelHeight;
+    private final ForkJoinPool pool;
+
+    /**
+     * Rasterize on the common pool.
+     *
+     * @see #VoronoiRaster(int, int, double, double, double, double, ForkJoinPool)
+     */
+    public VoronoiRaster(int width, int height, double minX, double maxX, double minY, double maxY)
+    {
+        this(width, height, minX, maxX, minY, maxY, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param width the amount of columns
+     * @param height the amount of rows
+     * @param minX the left side of the raster
+     * @param maxX the right side of the raster
+     * @param minY the side of row 0
+     * @param maxY the side of the last row
+     * @param pool fills the bands of rows
+     * @throws IllegalArgumentException if the raster has too many pixels for an array
+     */
+    public VoronoiRaster(int width, int height, double minX, double maxX, double minY, double maxY,
+            ForkJoinPool pool)
+    {
+        if ((long) width * height > MAX_PIXELS)
+        {
+            throw new IllegalArgumentException("Too many pixels for an array: " + width + " x " + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.minX = minX;
+        this.minY = minY;
+        pixelWidth = (maxX - minX) / width;
+        pixelHeight = (maxY - minY) / height;
+        this.pool = pool;
+    }
+
+    public int getWidth()
+    {
+        return width;
+    }
+
+    public int getHeight()
+    {
+        return height;
+    }
+
+    /**
+     * @param cells the cells to fill
+     * @return the site of every pixel, row by row, or {@link #NONE}
+     */
+    public int[] rasterize(VoronoiCells cells)
+    {
+        int[] labels = new int[width * height];
+        rasterize(cells, labels);
+        return labels;
+    }
+
+    /**
+     * @param cells the cells to fill
+     * @param labels receives the site of every pixel, row by row, or {@link #NONE}
+     */
+    public void rasterize(VoronoiCells cells, int[] labels)
+    {
+        double[] bounds = bounds(cells);
+        int bands = bandCount();
+        int[] bandStart = new int[bands + 1];
+        int[] bandSites = bucket(cells, bounds, bands, bandStart);
+        forBands(bands, (b, lo, hi) -> fill(cells, bounds, bandSites, bandStart[b], bandStart[b + 1], labels, lo, hi));
+    }
+
+    /**
+     * Rasterize, then check every pixel against the neighbours of its cell, so that every
+     * pixel gets the site nearest to its centre even where the vertices of the sweep are off
+     * in the last bits. Costs about a distance per neighbour and pixel.
+     *
+     * @param cells the cells to fill
+     * @param x the X values of the sites of the cells
+     * @param y the Y values of the sites of the cells
+     * @param labels receives the site of every pixel, row by row, or {@link #NONE}
+     */
+    public void rasterizeExact(VoronoiCells cells, double[] x, double[] y, int[] labels)
+    {
+        double[] bounds = bounds(cells);
+        int[][] neighbors = neighbors(cells);
+        int bands = bandCount();
+        int[] bandStart = new int[bands + 1];
+        int[] bandSites = bucket(cells, bounds, bands, bandStart);
+        forBands(bands, (b, lo, hi) ->
+        {
+            fill(cells, bounds, bandSites, bandStart[b], bandStart[b + 1], labels, lo, hi);
+            for (int r = lo; r < hi; r++)
+            {
+                double py = minY + (r + 0.5) * pixelHeight;
+                for (int c = 0, p = r * width; c < width; c++, p++)
+                {
+                    int s = labels[p];
+                    if (s == NONE)
+                    {
+                        continue;
+                    }
+                    double px = minX + (c + 0.5) * pixelWidth;
+                    double best = (x[s] - px) * (x[s] - px) + (y[s] - py) * (y[s] - py);
+                    boolean moved = true;
+                    while (moved)
+                    {
+                        moved = false;
+                        for (int n : neighbors[s])
+                        {
+                            double d = (x[n] - px) * (x[n] - px) + (y[n] - py) * (y[n] - py);
+                            if (d < best)
+                            {
+                                best = d;
+                                s = n;
+                                moved = true;
+                            }
+                        }
+                    }
+                    labels[p] = s;
+                }
+            }
+        });
+    }
+
+    /**
+     * Paint the cells into a new image. The labels are written into the pixels of the image
+     * and then replaced by the colours, so no other raster is allocated.
+     *
+     * @param cells the cells to fill
+     * @param colors the ARGB colour of every site
+     * @return an image of type {@link BufferedImage#TYPE_INT_ARGB}, transparent outside of the cells
+     */
+    public BufferedImage createImage(VoronoiCells cells, int[] colors)
+    {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        rasterize(cells, pixels);
+        forBands(bandCount(), (b, lo, hi) ->
+        {
+            for (int p = lo * width; p < hi * width; p++)
+            {
+                pixels[p] = pixels[p] == NONE ? 0 : colors[pixels[p]];
+            }
+        });
+        return image;
+    }
+
+    // The lowest and highest Y of every cell, NaN for empty cells
+    private static double[] bounds(VoronoiCells cells)
+    {
+        int sites = cells.getSiteCount();
+        double[] bounds = new double[2 * sites];
+        for (int s = 0; s < sites; s++)
+        {
+            double low = Double.NaN, high = Double.NaN;
+            for (int i = 0; i < cells.getPointCount(s); i++)
+            {
+                double py = cells.getY(s, i);
+                low = i == 0 ? py : Math.min(low, py);
+                high = i == 0 ? py : Math.max(high, py);
+            }
+            bounds[2 * s] = low;
+            bounds[2 * s + 1] = high;
+        }
+        return bounds;
+    }
+
+    // The sites of the cells that share an edge with each cell
+    private static int[][] neighbors(VoronoiCells cells)
+    {
+        VoronoiMesh mesh = cells.getMesh();
+        int sites = cells.getSiteCount();
+        int[][] neighbors = new int[sites][];
+        for (int s = 0; s < sites; s++)
+        {
+            int count = 0;
+            int[] found = new int[cells.ringLength[s]];
+            for (int i = cells.ringStart[s]; i < cells.ringStart[s] + cells.ringLength[s]; i++)
+            {
+                int e = cells.ringEdge[i];
+                if (e >= 0)
+                {
+                    found[count++] = mesh.edgeSite1[e] == s ? mesh.edgeSite2[e] : mesh.edgeSite1[e];
+                }
+            }
+            neighbors[s] = count == found.length ? found : Arrays.copyOf(found, count);
+        }
+        return neighbors;
+    }
+
+    /*
+     * The cells that have rows in each band, so that a band only looks at the cells that reach
+     * it. The cells of band b are returned from bandStart[b] to bandStart[b + 1] - 1.
+     */
+    private int[] bucket(VoronoiCells cells, double[] bounds, int bands, int[] bandStart)
+    {
+        int sites = cells.getSiteCount();
+        // The first and last band of every cell, -1 if it has no rows
+        int[] first = new int[sites];
+        int[] last = new int[sites];
+        for (int s = 0; s < sites; s++)
+        {
+            int r0 = Math.max(0, firstCenter(bounds[2 * s], minY, pixelHeight));
+            int r1 = Math.min(height, firstCenter(bounds[2 * s + 1], minY, pixelHeight));
+            if (cells.getPointCount(s) < 3 || r0 >= r1)
+            {
+                first[s] = last[s] = -1;
+                continue;
+            }
+            first[s] = band(r0, bands);
+            last[s] = band(r1 - 1, bands);
+            for (int b = first[s]; b <= last[s]; b++)
+            {
+                bandStart[b + 1]++;
+            }
+        }
+        for (int b = 0; b < bands; b++)
+        {
+            bandStart[b + 1] += bandStart[b];
+        }
+        int[] bandSites = new int[bandStart[bands]];
+        int[] fill = Arrays.copyOf(bandStart, bands);
+        for (int s = 0; s < sites; s++)
+        {
+            for (int b = first[s]; b >= 0 && b <= last[s]; b++)
+            {
+                bandSites[fill[b]++] = s;
+            }
+        }
+        return bandSites;
+    }
+
+    // Clear the rows from lo to hi and fill the spans of the cells from..to of bandSites in them
+    private void fill(VoronoiCells cells, double[] bounds, int[] bandSites, int from, int to, int[] labels,
+            int lo, int hi)
+    {
+        Arrays.fill(labels, lo * width, hi * width, NONE);
+        for (int k = from; k < to; k++)
+        {
+            int s = bandSites[k];
+            int count = cells.getPointCount(s);
+            // The rows whose centre is in [low, high)
+            int r0 = Math.max(lo, firstCenter(bounds[2 * s], minY, pixelHeight));
+            int r1 = Math.min(hi, firstCenter(bounds[2 * s + 1], minY, pixelHeight));
+            for (int r = r0; r < r1; r++)
+            {
+                double py = minY + (r + 0.5) * pixelHeight;
+                double left = Double.POSITIVE_INFINITY, right = Double.NEGATIVE_INFINITY;
+                double x0 = cells.getX(s, count - 1), y0 = cells.getY(s, count - 1);
+                for (int i = 0; i < count; i++)
+                {
+                    double x1 = cells.getX(s, i), y1 = cells.getY(s, i);
+                    if ((y0 <= py) != (y1 <= py))
+                    {
+                        // From the lower end, so that both cells of the edge get the same value
+                        double px = y0 < y1 ? x0 + (py - y0) * (x1 - x0) / (y1 - y0)
+                                : x1 + (py - y1) * (x0 - x1) / (y0 - y1);
+                        left = Math.min(left, px);
+                        right = Math.max(right, px);
+                    }
+                    x0 = x1;
+                    y0 = y1;
+                }
+                int c0 = Math.max(0, firstCenter(left, minX, pixelWidth));
+                int c1 = Math.min(width, firstCenter(right, minX, pixelWidth));
+                for (int p = r * width + c0; p < r * width + c1; p++)
+                {
+                    labels[p] = s;
+                }
+            }
+        }
+    }
+
+    // The first pixel whose centre is at or after the value, clamped to the int range
+    private static int firstCenter(double value, double min, double size)
+    {
+        double i = Math.ceil((value - min) / size - 0.5);
+        return (int) Math.max(-1, Math.min(Integer.MAX_VALUE, i));
+    }
+
+    private interface Band
+    {
+        void run(int band, int lo, int hi);
+    }
+
+    private int bandCount()
+    {
+        return Math.max(1, Math.min(height, 4 * pool.getParallelism()));
+    }
+
+    // The band of a row: band i has the rows from height * i / bands to height * (i + 1) / bands
+    private int band(int row, int bands)
+    {
+        return (int) ((((long) row + 1) * bands - 1) / height);
+    }
+
+    private void forBands(int count, Band band)
+    {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            int b = i;
+            int lo = (int) ((long) height * i / count);
+            int hi = (int) ((long) height * (i + 1) / count);
+            tasks.add(pool.submit(() -> band.run(b, lo, hi)));
+        }
+        for (ForkJoinTask<?> task : tasks)
+        {
+            task.join();
+        }
+    }
+}
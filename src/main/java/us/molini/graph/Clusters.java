@@ -0,0 +1,238 @@
+package us.molini.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Groups of sites that are linked through neighbours within a distance, found in one pass
+ * with union-find over the neighbours of a {@link SiteGraph}.
+ *
+ * <p>The sites are split into ranges that are joined in parallel, each only through the
+ * neighbours inside its range, so every range works on its own part of the sets. The
+ * neighbours between ranges are joined afterwards. Sites that are spatially sorted, like the
+ * sites of a grid, have few of those.
+ *
+ * <p>Clusters are numbered from 0 in the order of their first site, or first core site for
+ * {@link #dbscan}.
+ */
+public final class Clusters {
+
+    /** The cluster of sites that are in none. */
+    public static final int NOISE = -1;
+
+    private final int[] cluster;
+    private final int count;
+    private final int[] offsets;
+    private final int[] members;
+
+    private Clusters(int[] cluster, int count) {
+        this.cluster = cluster;
+        this.count = count;
+        offsets = new int[count + 1];
+        for (int c : cluster) {
+            if (c != NOISE) {
+                offsets[c + 1]++;
+            }
+        }
+        for (int c = 0; c < count; c++) {
+            offsets[c + 1] += offsets[c];
+        }
+        members = new int[offsets[count]];
+        int[] fill = Arrays.copyOf(offsets, count);
+        for (int n = 0; n < cluster.length; n++) {
+            if (cluster[n] != NOISE) {
+                members[fill[cluster[n]]++] = n;
+            }
+        }
+    }
+
+    /**
+     * The connected components of a graph.
+     *
+     * @see #ofRadius(SiteGraph, double, ForkJoinPool)
+     */
+    public static Clusters components(SiteGraph graph) {
+        return ofRadius(graph, Double.POSITIVE_INFINITY, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Cluster on the common pool.
+     *
+     * @see #ofRadius(SiteGraph, double, ForkJoinPool)
+     */
+    public static Clusters ofRadius(SiteGraph graph, double distance) {
+        return ofRadius(graph, distance, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Cluster the sites that are linked through neighbours within a distance, so that every
+     * site is in a cluster, maybe of its own.
+     *
+     * @param graph the neighbours of the sites
+     * @param distance the longest link between two neighbours of a cluster
+     * @param pool joins the ranges of sites
+     * @return the clusters
+     */
+    public static Clusters ofRadius(SiteGraph graph, double distance, ForkJoinPool pool) {
+        UnionFind sets = new UnionFind(graph.size());
+        join(graph, distance, null, sets, pool);
+        return label(graph, distance, sets, null);
+    }
+
+    /**
+     * Cluster on the common pool.
+     *
+     * @see #dbscan(SiteGraph, double, int, ForkJoinPool)
+     */
+    public static Clusters dbscan(SiteGraph graph, double distance, int minSites) {
+        return dbscan(graph, distance, minSites, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Cluster like DBSCAN, with the neighbours within the distance as the neighbourhood of a
+     * site. A site with at least minSites sites in its neighbourhood, itself included, is a
+     * core site. Core sites are clustered like {@link #ofRadius}, the other sites join the
+     * cluster of their nearest core site within the distance, or are {@link #NOISE}.
+     *
+     * @param graph the neighbours of the sites
+     * @param distance the longest link between two neighbours of a cluster
+     * @param minSites the size of the neighbourhood of a core site
+     * @param pool finds the core sites and joins the ranges of sites
+     * @return the clusters
+     */
+    public static Clusters dbscan(SiteGraph graph, double distance, int minSites, ForkJoinPool pool) {
+        int sites = graph.size();
+        boolean[] core = new boolean[sites];
+        forRanges(sites, pool, (lo, hi) -> {
+            for (int n = lo; n < hi; n++) {
+                int close = 1;
+                for (int i = graph.offsets[n]; i < graph.offsets[n + 1]; i++) {
+                    if (graph.distance(n, graph.neighbors[i]) <= distance) {
+                        close++;
+                    }
+                }
+                core[n] = close >= minSites;
+            }
+        });
+        UnionFind sets = new UnionFind(sites);
+        join(graph, distance, core, sets, pool);
+        return label(graph, distance, sets, core);
+    }
+
+    // Join the core sites, or all if core is null, with their neighbours within the distance
+    private static void join(SiteGraph graph, double distance, boolean[] core, UnionFind sets, ForkJoinPool pool) {
+        int sites = graph.size();
+        int[] offsets = graph.offsets;
+        int[] neighbors = graph.neighbors;
+        // The ranges only touch the sets of their own sites
+        forRanges(sites, pool, (lo, hi) -> {
+            for (int n = lo; n < hi; n++) {
+                if (core != null && !core[n]) {
+                    continue;
+                }
+                for (int i = offsets[n]; i < offsets[n + 1]; i++) {
+                    int m = neighbors[i];
+                    if (m > n && m < hi && (core == null || core[m]) && graph.distance(n, m) <= distance) {
+                        sets.union(n, m);
+                    }
+                }
+            }
+        });
+        int ranges = ranges(sites, pool);
+        for (int r = 0; r < ranges; r++) {
+            int hi = (int) ((long) sites * (r + 1) / ranges);
+            for (int n = (int) ((long) sites * r / ranges); n < hi; n++) {
+                if (core != null && !core[n]) {
+                    continue;
+                }
+                for (int i = offsets[n]; i < offsets[n + 1]; i++) {
+                    int m = neighbors[i];
+                    if (m >= hi && (core == null || core[m]) && graph.distance(n, m) <= distance) {
+                        sets.union(n, m);
+                    }
+                }
+            }
+        }
+    }
+
+    // Number the sets, the sites that are not core join their nearest core neighbour
+    private static Clusters label(SiteGraph graph, double distance, UnionFind sets, boolean[] core) {
+        int sites = graph.size();
+        int[] cluster = new int[sites];
+        int[] rootCluster = new int[sites];
+        Arrays.fill(rootCluster, NOISE);
+        int count = 0;
+        for (int n = 0; n < sites; n++) {
+            if (core != null && !core[n]) {
+                continue;
+            }
+            int root = sets.find(n);
+            if (rootCluster[root] == NOISE) {
+                rootCluster[root] = count++;
+            }
+            cluster[n] = rootCluster[root];
+        }
+        if (core != null) {
+            for (int n = 0; n < sites; n++) {
+                if (core[n]) {
+                    continue;
+                }
+                cluster[n] = NOISE;
+                double nearest = distance;
+                for (int i = graph.offsets[n]; i < graph.offsets[n + 1]; i++) {
+                    int m = graph.neighbors[i];
+                    double d = graph.distance(n, m);
+                    if (core[m] && d <= nearest) {
+                        nearest = d;
+                        cluster[n] = cluster[m];
+                    }
+                }
+            }
+        }
+        return new Clusters(cluster, count);
+    }
+
+    private interface Range {
+        void run(int lo, int hi);
+    }
+
+    private static int ranges(int sites, ForkJoinPool pool) {
+        return Math.max(1, Math.min(sites / 1024, 4 * pool.getParallelism()));
+    }
+
+    private static void forRanges(int sites, ForkJoinPool pool, Range range) {
+        int count = ranges(sites, pool);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int lo = (int) ((long) sites * i / count);
+            int hi = (int) ((long) sites * (i + 1) / count);
+            tasks.add(pool.submit(() -> range.run(lo, hi)));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+
+    /** Return the number of clusters. */
+    public int size() {
+        return count;
+    }
+
+    /** Return the cluster of a site, or {@link #NOISE}. */
+    public int getCluster(int n) {
+        return cluster[n];
+    }
+
+    /** Return the number of sites of a cluster. */
+    public int getSize(int c) {
+        return offsets[c + 1] - offsets[c];
+    }
+
+    /** Return the sites of a cluster, in increasing order. */
+    public int[] getSites(int c) {
+        return Arrays.copyOfRange(members, offsets[c], offsets[c + 1]);
+    }
+}
@@ -0,0 +1,24 @@
+package us.molini.graph;
+
+/**
+ * The cost of a step between two neighbouring sites, for {@link PathFinder}. Costs must not
+ * be negative.
+ */
+@FunctionalInterface
+public interface EdgeCost {
+
+    /** The distance between the sites. */
+    EdgeCost DISTANCE = (graph, from, to, i) -> graph.distance(from, to);
+
+    /** The length of the border between the cells of the sites, see {@link SiteGraph#getBorderLength(int, int)}. */
+    EdgeCost BORDER_LENGTH = (graph, from, to, i) -> graph.getBorderLength(from, i);
+
+    /**
+     * @param graph the graph the step is on
+     * @param from the site the step starts at
+     * @param to the neighbour the step goes to
+     * @param i the index of the neighbour, graph.getNeighbor(from, i) == to
+     * @return the cost of the step
+     */
+    double cost(SiteGraph graph, int from, int to, int i);
+}
@@ -2,11 +2,11 @@ package us.molini.graph;
 
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 
 import be.humphreys.simplevoronoi.GraphEdge;
 import be.humphreys.simplevoronoi.Voronoi;
+import be.humphreys.simplevoronoi.VoronoiEngine;
 
 import be.humphreys.simplevoronoi.Site;
 
@@ -14,6 +14,10 @@ public class GraphFactory extends Voronoi {
 
     List<Site> allNeighbors;
     boolean gotNeighbors;
+    SiteGraph graph;
+    RadiusQuery query;
+    NearestQuery nearestQuery;
+    PathFinder pathFinder;
 
     public GraphFactory() {
         this(0.0);
@@ -34,7 +38,7 @@ public class GraphFactory extends Voronoi {
      */
     public List<GraphEdge> generateVoronoi(Point2D[] p, double minX, double maxX, double minY, double maxY)
     {
-        allEdges = new LinkedList<>();
+        resetWorkspace(p.length);
         allNeighbors = new ArrayList<>();
 
          int count = p.length;
@@ -68,36 +72,49 @@ public class GraphFactory extends Voronoi {
     public Neighborhood getNeighborhood(int n) {
         if (!gotNeighbors)
             findNeighbors();
-        return (Neighborhood) allNeighbors.get(n);
+        Neighborhood hood = (Neighborhood) allNeighbors.get(n);
+        // The lists are only built for the neighborhoods that are asked for.
+        if (hood.neighbor == null) {
+            hood.neighbor = new ArrayList<>(graph.getDegree(n));
+            for (int i = graph.offsets[n]; i < graph.offsets[n + 1]; i++) {
+                hood.neighbor.add((Neighborhood) allNeighbors.get(graph.neighbors[i]));
+            }
+        }
+        return hood;
+    }
+
+    /** Get the adjacency of all sites of the latest graph. */
+    public SiteGraph getGraph() {
+        if (!gotNeighbors)
+            findNeighbors();
+        return graph;
     }
 
-    // Extract the site information from the Voronoi edges and save them as references.
+    // Extract the site information from the Voronoi edges into the graph.
     private void findNeighbors() {
-        for(GraphEdge e:allEdges) {
-            Neighborhood hood1 = (Neighborhood) allNeighbors.get(e.site1);
-            Neighborhood hood2 = (Neighborhood) allNeighbors.get(e.site2);
-            hood1.neighbor.add(hood2);
-            hood2.neighbor.add(hood1);
-        }
-        // Clear the visit values.
-        for( Site s: allNeighbors) {
-            Neighborhood hood = (Neighborhood) s;
-            hood.lastVisit = -1;
+        int count = allNeighbors.size();
+        double[] x = new double[count];
+        double[] y = new double[count];
+        for (int i = 0; i < count; i++) {
+            Site s = allNeighbors.get(i);
+            x[i] = s.x;
+            y[i] = s.y;
         }
+        graph = SiteGraph.build(x, y, allEdges);
+        query = new RadiusQuery(graph);
+        nearestQuery = null;
+        pathFinder = null;
         gotNeighbors = true;
     }
-    
-    private void visit(Neighborhood origin, double radius, Site s, List<Site> result ) {
-        Neighborhood hood = (Neighborhood) s;
-        //System.out.println("Checking "+s.sitenbr+"("+hood.lastVisit+") against "+origin.sitenbr);
-        if (hood.lastVisit == origin.sitenbr) return;
-
-        hood.lastVisit = origin.sitenbr;
-        if (hood.distance(origin) > radius ) return;
-        result.add(hood);
-        for( Site next: hood.neighbor) {
-            visit(origin, radius, next, result);
-        }
+
+    /** Get the radius queries on the latest graph, they can be used by any amount of threads.
+     * Every thread that queries keeps marks for all sites until the thread ends, and a new
+     * graph gets a new query with new marks, so query from a few long lived threads.
+     */
+    public RadiusQuery getRadiusQuery() {
+        if (!gotNeighbors)
+            findNeighbors();
+        return query;
     }
 
     /** Find the points within a given distance. 
@@ -107,13 +124,90 @@ public class GraphFactory extends Voronoi {
      * @return the list of other sites within the given distance.
      */
     public List<Site> closeTo(int n, double radius) {
-        List<Site> result = new ArrayList<>();
         if (!gotNeighbors) findNeighbors();
-        Neighborhood origin = (Neighborhood) allNeighbors.get(n);
-        origin.lastVisit = n;
-        for( Site s:origin.neighbor) {
-            visit(origin, radius, s, result);
+        int[] close = query.closeTo(n, radius);
+        List<Site> result = new ArrayList<>(close.length);
+        for (int m : close) {
+            result.add(allNeighbors.get(m));
         }
         return result;
     }
+
+    /** Get the k nearest queries on the latest sites, they can be used by any amount of threads.
+     * The edges of the graph miss the neighbours whose border is outside of the bounding box
+     * or shorter than the minimum distance, so the queries search the Delaunay triangles of
+     * the sites instead, which are computed with another sweep on the first call. A thread
+     * that queries keeps a heap and marks sized to the sites for as long as it lives.
+     */
+    public NearestQuery getNearestQuery() {
+        if (!gotNeighbors)
+            findNeighbors();
+        if (nearestQuery == null) {
+            int[] triangles = new VoronoiEngine(0).computeTriangles(graph.x, graph.y);
+            nearestQuery = new NearestQuery(SiteGraph.build(graph.x, graph.y, triangles));
+        }
+        return nearestQuery;
+    }
+
+    /** Get the path searches on the latest graph, they can be used by any amount of threads.
+     * The search state of each thread holds several arrays over all sites and lives as long
+     * as the thread, so a pool of many threads multiplies it.
+     */
+    public PathFinder getPathFinder() {
+        if (!gotNeighbors)
+            findNeighbors();
+        if (pathFinder == null)
+            pathFinder = new PathFinder(graph);
+        return pathFinder;
+    }
+
+    /** Find the nearest points. This allocates the list and its array on every call, see
+     * {@link #nearest(int, int, int[])} for repeated queries.
+     *
+     * @param n the site to be checked
+     * @param k the number of points to find.
+     * @return the list of the k nearest other sites, nearest first.
+     */
+    public List<Site> nearest(int n, int k) {
+        int[] found = new int[k];
+        int count = nearest(n, k, found);
+        List<Site> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(allNeighbors.get(found[i]));
+        }
+        return result;
+    }
+
+    /** Find the nearest points without allocating, same as
+     * {@code getNearestQuery().nearest(n, k, result)}.
+     *
+     * @param n the site to be checked
+     * @param k the number of points to find.
+     * @param result receives the k nearest other sites, nearest first; at least k long.
+     * @return the number of sites found, less than k if there are fewer other sites.
+     */
+    public int nearest(int n, int k, int[] result) {
+        return getNearestQuery().nearest(n, k, result);
+    }
+
+    /** Group the sites of the latest graph that are linked through neighbours within a distance.
+     *
+     * @param distance the longest link between two neighbours of a cluster
+     * @return the clusters, every site is in one.
+     * @see Clusters#ofRadius(SiteGraph, double)
+     */
+    public Clusters clusters(double distance) {
+        return Clusters.ofRadius(getGraph(), distance);
+    }
+
+    /** Group the sites of the latest graph like DBSCAN.
+     *
+     * @param distance the longest link between two neighbours of a cluster
+     * @param minSites the number of sites within the distance of a core site, itself included
+     * @return the clusters, sites far from the core sites are in none.
+     * @see Clusters#dbscan(SiteGraph, double, int)
+     */
+    public Clusters dbscan(double distance, int minSites) {
+        return Clusters.dbscan(getGraph(), distance, minSites);
+    }
 }
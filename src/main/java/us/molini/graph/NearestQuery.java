@@ -0,0 +1,206 @@
+package us.molini.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * The k nearest sites of a site or a point. The search expands the neighbours of the sites
+ * found so far, always the one nearest to the query first, until k sites are found. Only
+ * the sites around the answer are touched, instead of sorting the distances of all sites.
+ *
+ * <p>The answer is exact if the graph holds every pair of neighbouring sites, like a graph
+ * of the Delaunay triangles, see {@link SiteLocator}.
+ *
+ * <p>Each thread has its own heap and visit marks, which are reused by its later queries,
+ * so that a query that writes into a given array allocates nothing. Any amount of threads
+ * can query at once. The heap and marks take memory in proportion to the sites, per thread
+ * that has queried, and are only freed with the query or the thread.
+ */
+public final class NearestQuery {
+
+    private final SiteLocator locator;
+    private final ThreadLocal<Scratch> scratch;
+
+    public NearestQuery(SiteGraph graph) {
+        this(new SiteLocator(graph));
+    }
+
+    public NearestQuery(SiteLocator locator) {
+        this.locator = locator;
+        scratch = ThreadLocal.withInitial(() -> new Scratch(locator.getGraph().size()));
+    }
+
+    public SiteGraph getGraph() {
+        return locator.getGraph();
+    }
+
+    /**
+     * Find the k nearest other sites of a site.
+     *
+     * @param n the site
+     * @param k the amount of sites to find
+     * @param result receives the sites, nearest first; at least k long
+     * @return the amount of sites found, less than k if the graph has fewer sites
+     */
+    public int nearest(int n, int k, int[] result) {
+        SiteGraph graph = locator.getGraph();
+        return scratch.get().search(graph, n, graph.x[n], graph.y[n], k, result, true);
+    }
+
+    /**
+     * Find the k nearest sites of a point.
+     *
+     * @param x the X value of the point
+     * @param y the Y value of the point
+     * @param k the amount of sites to find
+     * @param result receives the sites, nearest first; at least k long
+     * @return the amount of sites found, less than k if the graph has fewer sites
+     */
+    public int nearest(double x, double y, int k, int[] result) {
+        return scratch.get().search(locator.getGraph(), locator.nearest(x, y), x, y, k, result, false);
+    }
+
+    /**
+     * Find the k nearest other sites of every site, on the common pool.
+     *
+     * @see #nearestAll(int, ForkJoinPool)
+     */
+    public SiteGraph nearestAll(int k) {
+        return nearestAll(k, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Find the k nearest other sites of every site in parallel.
+     *
+     * @param k the amount of sites to find per site
+     * @param pool runs the queries
+     * @return a graph in which the neighbours of every site are its nearest sites, nearest first
+     */
+    public SiteGraph nearestAll(int k, ForkJoinPool pool) {
+        SiteGraph graph = locator.getGraph();
+        int sites = graph.size();
+        int width = Math.min(k, Math.max(0, sites - 1));
+        int[] found = new int[sites * width];
+        int[] counts = new int[sites];
+        int chunks = Math.max(1, Math.min(sites, 4 * pool.getParallelism()));
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            int lo = (int) ((long) sites * i / chunks);
+            int hi = (int) ((long) sites * (i + 1) / chunks);
+            tasks.add(pool.submit(() -> {
+                Scratch s = new Scratch(sites);
+                int[] result = new int[width];
+                for (int n = lo; n < hi; n++) {
+                    counts[n] = s.search(graph, n, graph.x[n], graph.y[n], width, result, true);
+                    System.arraycopy(result, 0, found, n * width, counts[n]);
+                }
+            }));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+
+        // Rows of sites that cannot reach k others are shorter
+        int[] offsets = new int[sites + 1];
+        int size = 0;
+        for (int n = 0; n < sites; n++) {
+            System.arraycopy(found, n * width, found, size, counts[n]);
+            size += counts[n];
+            offsets[n + 1] = size;
+        }
+        return new SiteGraph(offsets, size == found.length ? found : Arrays.copyOf(found, size), graph.x, graph.y);
+    }
+
+    // The state of the queries of one thread
+    private static final class Scratch {
+        final int[] mark;
+        int epoch;
+        // Binary min heap of sites by squared distance
+        double[] heapKey = new double[64];
+        int[] heapSite = new int[64];
+        int heapSize;
+
+        Scratch(int sites) {
+            mark = new int[sites];
+        }
+
+        int search(SiteGraph graph, int start, double x, double y, int k, int[] result, boolean skipStart) {
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(mark, 0);
+                epoch = 1;
+            }
+            int[] offsets = graph.offsets;
+            int[] neighbors = graph.neighbors;
+            double[] sx = graph.x, sy = graph.y;
+            heapSize = 0;
+            mark[start] = epoch;
+            push(start, (sx[start] - x) * (sx[start] - x) + (sy[start] - y) * (sy[start] - y));
+            int count = 0;
+            boolean skip = skipStart;
+            while (heapSize > 0 && count < k) {
+                int n = pop();
+                if (skip) {
+                    skip = false;
+                } else {
+                    result[count++] = n;
+                }
+                for (int i = offsets[n], end = offsets[n + 1]; i < end; i++) {
+                    int m = neighbors[i];
+                    if (mark[m] != epoch) {
+                        mark[m] = epoch;
+                        push(m, (sx[m] - x) * (sx[m] - x) + (sy[m] - y) * (sy[m] - y));
+                    }
+                }
+            }
+            return count;
+        }
+
+        private void push(int site, double key) {
+            if (heapSize == heapKey.length) {
+                heapKey = Arrays.copyOf(heapKey, 2 * heapSize);
+                heapSite = Arrays.copyOf(heapSite, 2 * heapSize);
+            }
+            int i = heapSize++;
+            while (i > 0) {
+                int parent = (i - 1) >> 1;
+                if (heapKey[parent] <= key) {
+                    break;
+                }
+                heapKey[i] = heapKey[parent];
+                heapSite[i] = heapSite[parent];
+                i = parent;
+            }
+            heapKey[i] = key;
+            heapSite[i] = site;
+        }
+
+        private int pop() {
+            int top = heapSite[0];
+            int size = --heapSize;
+            double key = heapKey[size];
+            int site = heapSite[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && heapKey[child + 1] < heapKey[child]) {
+                    child++;
+                }
+                if (key <= heapKey[child]) {
+                    break;
+                }
+                heapKey[i] = heapKey[child];
+                heapSite[i] = heapSite[child];
+                i = child;
+            }
+            heapKey[i] = key;
+            heapSite[i] = site;
+            return top;
+        }
+    }
+}
@@ -11,14 +11,12 @@ public class Neighborhood extends Site {
      * serialVersionUID.
      */
     private static final long serialVersionUID = 1726045706862326870L;
-    int lastVisit; // Site number of list visitor.
-    ArrayList<Neighborhood> neighbor;
+    ArrayList<Neighborhood> neighbor; // Built by GraphFactory.getNeighborhood
 
     Neighborhood(Point2D p, int number) {
         super();
         this.setLocation(p);
         sitenbr = number;
-        neighbor = new ArrayList<>();
     }
 
     public double distance(Site s) {
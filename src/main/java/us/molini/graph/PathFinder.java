@@ -0,0 +1,238 @@
+package us.molini.graph;
+
+import java.util.Arrays;
+
+/**
+ * Shortest paths over a {@link SiteGraph}: Dijkstra from one or several sources, and A*
+ * between two sites with the straight line distance as the heuristic. The cost of a step is
+ * given by an {@link EdgeCost}.
+ *
+ * <p>Each thread has its own indexed heap and search state, which are reused by its later
+ * searches. A search starts a new epoch of the state instead of clearing it, so the work is
+ * proportional to the part of the graph that is searched. Any amount of threads can search
+ * at once, but each of them keeps its own state over all sites until the finder or the
+ * thread is gone.
+ */
+public final class PathFinder {
+
+    private final SiteGraph graph;
+    private final ThreadLocal<Scratch> scratch;
+
+    public PathFinder(SiteGraph graph) {
+        this.graph = graph;
+        scratch = ThreadLocal.withInitial(() -> new Scratch(graph.size()));
+    }
+
+    public SiteGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Find a cheapest path, with A* if the cost is {@link EdgeCost#DISTANCE}, with Dijkstra
+     * otherwise.
+     *
+     * @param from the first site of the path
+     * @param to the last site of the path
+     * @param cost the cost of the steps
+     * @return the sites of the path, empty if to cannot be reached
+     */
+    public int[] path(int from, int to, EdgeCost cost) {
+        return path(from, to, cost, cost == EdgeCost.DISTANCE ? 1.0 : 0.0);
+    }
+
+    /**
+     * Find a cheapest path with A*. The heuristic is the straight line distance to the end
+     * times the scale. The path is the cheapest if no path between two sites costs less than
+     * the scale times their distance, otherwise it is found faster but may cost more.
+     *
+     * @param from the first site of the path
+     * @param to the last site of the path
+     * @param cost the cost of the steps
+     * @param heuristicScale 1 for the distance, 0 for Dijkstra
+     * @return the sites of the path, empty if to cannot be reached
+     */
+    public int[] path(int from, int to, EdgeCost cost, double heuristicScale) {
+        Scratch s = scratch.get();
+        if (s.search(graph, new int[] { from }, cost, to, heuristicScale) < 0) {
+            return new int[0];
+        }
+        int length = 1;
+        for (int n = to; n != from; n = s.previous[n]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int n = to; length > 0; n = s.previous[n]) {
+            path[--length] = n;
+        }
+        return path;
+    }
+
+    /**
+     * @return the cost of a cheapest path between the sites, infinite if to cannot be reached
+     * @see #path(int, int, EdgeCost)
+     */
+    public double cost(int from, int to, EdgeCost cost) {
+        Scratch s = scratch.get();
+        if (s.search(graph, new int[] { from }, cost, to, cost == EdgeCost.DISTANCE ? 1.0 : 0.0) < 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return s.g[to];
+    }
+
+    /**
+     * The cost of the cheapest paths from a site to all sites.
+     *
+     * @param source the site to start at
+     * @param cost the cost of the steps
+     * @param costs receives the cost of every site, infinite for sites that cannot be reached
+     * @param previous receives the site before every site on its path, -1 for the source and
+     *        sites that cannot be reached; may be null
+     */
+    public void costs(int source, EdgeCost cost, double[] costs, int[] previous) {
+        costs(new int[] { source }, cost, costs, previous);
+    }
+
+    /**
+     * The cost of the cheapest paths from the nearest of several sources to all sites, for
+     * example a distance field to the exits of a map. Following previous from a site leads to
+     * its nearest source.
+     *
+     * @param sources the sites to start at
+     * @param cost the cost of the steps
+     * @param costs receives the cost of every site, infinite for sites that cannot be reached
+     * @param previous receives the site before every site on its path, -1 for the sources and
+     *        sites that cannot be reached; may be null
+     */
+    public void costs(int[] sources, EdgeCost cost, double[] costs, int[] previous) {
+        Scratch s = scratch.get();
+        s.search(graph, sources, cost, -1, 0.0);
+        for (int n = 0; n < costs.length; n++) {
+            boolean reached = s.mark[n] == s.epoch;
+            costs[n] = reached ? s.g[n] : Double.POSITIVE_INFINITY;
+            if (previous != null) {
+                previous[n] = reached ? s.previous[n] : -1;
+            }
+        }
+    }
+
+    // The state of the searches of one thread
+    private static final class Scratch {
+        final int[] mark;
+        int epoch;
+        final double[] g;
+        final int[] previous;
+        // The position of each open site in the heap, -1 once it is closed
+        final int[] position;
+        double[] heapKey = new double[64];
+        int[] heapSite = new int[64];
+        int heapSize;
+
+        Scratch(int sites) {
+            mark = new int[sites];
+            g = new double[sites];
+            previous = new int[sites];
+            position = new int[sites];
+        }
+
+        // Returns target once it is closed, -1 if it cannot be reached or there is none
+        int search(SiteGraph graph, int[] sources, EdgeCost cost, int target, double scale) {
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(mark, 0);
+                epoch = 1;
+            }
+            int[] offsets = graph.offsets;
+            int[] neighbors = graph.neighbors;
+            double tx = target < 0 ? 0.0 : graph.x[target];
+            double ty = target < 0 ? 0.0 : graph.y[target];
+            boolean estimate = target >= 0 && scale > 0.0;
+            heapSize = 0;
+            for (int s : sources) {
+                if (mark[s] != epoch) {
+                    mark[s] = epoch;
+                    g[s] = 0.0;
+                    previous[s] = -1;
+                    insert(s, estimate ? scale * Math.hypot(graph.x[s] - tx, graph.y[s] - ty) : 0.0);
+                }
+            }
+            while (heapSize > 0) {
+                int n = pop();
+                position[n] = -1;
+                if (n == target) {
+                    return n;
+                }
+                for (int i = offsets[n], end = offsets[n + 1]; i < end; i++) {
+                    int m = neighbors[i];
+                    if (mark[m] == epoch && position[m] < 0) {
+                        continue;
+                    }
+                    double cg = g[n] + cost.cost(graph, n, m, i - offsets[n]);
+                    if (mark[m] != epoch) {
+                        mark[m] = epoch;
+                        g[m] = cg;
+                        previous[m] = n;
+                        insert(m, cg + (estimate ? scale * Math.hypot(graph.x[m] - tx, graph.y[m] - ty) : 0.0));
+                    } else if (cg < g[m]) {
+                        double key = heapKey[position[m]] - g[m] + cg;
+                        g[m] = cg;
+                        previous[m] = n;
+                        up(position[m], m, key);
+                    }
+                }
+            }
+            return -1;
+        }
+
+        private void insert(int site, double key) {
+            if (heapSize == heapKey.length) {
+                heapKey = Arrays.copyOf(heapKey, 2 * heapSize);
+                heapSite = Arrays.copyOf(heapSite, 2 * heapSize);
+            }
+            up(heapSize++, site, key);
+        }
+
+        // Move a site with a smaller key up from position i
+        private void up(int i, int site, double key) {
+            while (i > 0) {
+                int parent = (i - 1) >> 1;
+                if (heapKey[parent] <= key) {
+                    break;
+                }
+                set(i, heapSite[parent], heapKey[parent]);
+                i = parent;
+            }
+            set(i, site, key);
+        }
+
+        private int pop() {
+            int top = heapSite[0];
+            int size = --heapSize;
+            if (size > 0) {
+                double key = heapKey[size];
+                int site = heapSite[size];
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= size) {
+                        break;
+                    }
+                    if (child + 1 < size && heapKey[child + 1] < heapKey[child]) {
+                        child++;
+                    }
+                    if (key <= heapKey[child]) {
+                        break;
+                    }
+                    set(i, heapSite[child], heapKey[child]);
+                    i = child;
+                }
+                set(i, site, key);
+            }
+            return top;
+        }
+
+        private void set(int i, int site, double key) {
+            heapKey[i] = key;
+            heapSite[i] = site;
+            position[site] = i;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package us.molini.graph;
+
+import be.humphreys.simplevoronoi.IndexSort;
+
+/**
+ * Proximity graphs that are subgraphs of the Delaunay triangulation, computed from its
+ * edges instead of from all pairs of sites:
+ * minimum spanning tree &sube; relative neighbourhood graph &sube; Gabriel graph.
+ *
+ * <p>The results are exact for a graph that holds every pair of neighbouring sites, like a
+ * graph of the Delaunay triangles. A graph of the edges of a diagram misses the pairs whose
+ * edge is outside of the bounding box, so the results can miss some of their edges.
+ */
+public final class ProximityGraphs {
+
+    private ProximityGraphs() {
+    }
+
+    /**
+     * The Euclidean minimum spanning tree, with Kruskal's algorithm on the edges of the graph.
+     *
+     * @param graph the neighbours of the sites
+     * @return the tree, or a forest if the graph is not connected
+     */
+    public static SiteGraph minimumSpanningTree(SiteGraph graph) {
+        int sites = graph.size();
+        int[] offsets = graph.offsets;
+        int[] neighbors = graph.neighbors;
+        // Every pair once, as the entry from the smaller site
+        int[] pairs = new int[neighbors.length / 2];
+        double[] lengths = new double[pairs.length];
+        int count = 0;
+        for (int n = 0; n < sites; n++) {
+            for (int i = offsets[n]; i < offsets[n + 1]; i++) {
+                if (neighbors[i] > n) {
+                    pairs[count] = i;
+                    lengths[count++] = graph.distance(n, neighbors[i]);
+                }
+            }
+        }
+        int[] order = IndexSort.sort(lengths, null, count);
+
+        boolean[] keep = new boolean[neighbors.length];
+        UnionFind sets = new UnionFind(sites);
+        int[] owner = owners(graph);
+        int edges = 0;
+        for (int k = 0; k < count && edges < sites - 1; k++) {
+            int i = pairs[order[k]];
+            int a = owner[i];
+            int b = neighbors[i];
+            if (sets.union(a, b)) {
+                keep[i] = true;
+                keep[graph.entry(b, a)] = true;
+                edges++;
+            }
+        }
+        return graph.filter(keep);
+    }
+
+    /**
+     * The relative neighbourhood graph: two neighbours are connected if no other site is
+     * closer to both of them than they are to each other. Such a site is always a neighbour
+     * of one of them, so only those are checked.
+     *
+     * @param graph the neighbours of the sites
+     * @return the graph
+     */
+    public static SiteGraph relativeNeighborhoodGraph(SiteGraph graph) {
+        int[] offsets = graph.offsets;
+        int[] neighbors = graph.neighbors;
+        boolean[] keep = new boolean[neighbors.length];
+        for (int a = 0; a < graph.size(); a++) {
+            for (int i = offsets[a]; i < offsets[a + 1]; i++) {
+                int b = neighbors[i];
+                if (b < a) {
+                    continue;
+                }
+                double d = graph.distance(a, b);
+                if (!inLune(graph, a, b, a, d) && !inLune(graph, a, b, b, d)) {
+                    keep[i] = true;
+                    keep[graph.entry(b, a)] = true;
+                }
+            }
+        }
+        return graph.filter(keep);
+    }
+
+    // True if a neighbour of n is closer to both a and b than their distance d
+    private static boolean inLune(SiteGraph graph, int a, int b, int n, double d) {
+        for (int i = graph.offsets[n]; i < graph.offsets[n + 1]; i++) {
+            int c = graph.neighbors[i];
+            if (c != a && c != b && graph.distance(a, c) < d && graph.distance(b, c) < d) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The Gabriel graph: two neighbours are connected if no other site is inside the circle
+     * that has the line between them as its diameter. Such a site is always a common neighbour
+     * of both, so only those are checked.
+     *
+     * @param graph the neighbours of the sites
+     * @return the graph
+     */
+    public static SiteGraph gabrielGraph(SiteGraph graph) {
+        int[] offsets = graph.offsets;
+        int[] neighbors = graph.neighbors;
+        double[] x = graph.x, y = graph.y;
+        boolean[] keep = new boolean[neighbors.length];
+        for (int a = 0; a < graph.size(); a++) {
+            for (int i = offsets[a]; i < offsets[a + 1]; i++) {
+                int b = neighbors[i];
+                if (b < a) {
+                    continue;
+                }
+                boolean empty = true;
+                for (int j = offsets[a]; j < offsets[a + 1] && empty; j++) {
+                    int c = neighbors[j];
+                    // c is inside the circle if the angle at c is obtuse
+                    if (c != b && graph.entry(b, c) >= 0
+                            && (x[a] - x[c]) * (x[b] - x[c]) + (y[a] - y[c]) * (y[b] - y[c]) < 0) {
+                        empty = false;
+                    }
+                }
+                if (empty) {
+                    keep[i] = true;
+                    keep[graph.entry(b, a)] = true;
+                }
+            }
+        }
+        return graph.filter(keep);
+    }
+
+    // The site of every entry of neighbors
+    private static int[] owners(SiteGraph graph) {
+        int[] owner = new int[graph.neighbors.length];
+        for (int n = 0; n < graph.size(); n++) {
+            for (int i = graph.offsets[n]; i < graph.offsets[n + 1]; i++) {
+                owner[i] = n;
+            }
+        }
+        return owner;
+    }
+}
@@ -0,0 +1,170 @@
+package us.molini.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Radius queries on a {@link SiteGraph}: the sites within a distance of a site that can be
+ * reached from it through neighbours that are all within that distance.
+ *
+ * <p>The search keeps its work stack and its visit marks outside of the graph. Each thread
+ * has its own, and every query starts a new epoch of the marks instead of clearing them, so
+ * any amount of threads can query the same graph at once. The stack and marks of a thread
+ * take a few ints per site of the graph and are kept until the query or the thread is gone.
+ */
+public final class RadiusQuery {
+
+    private final SiteGraph graph;
+    private final ThreadLocal<Scratch> scratch;
+
+    public RadiusQuery(SiteGraph graph) {
+        this.graph = graph;
+        scratch = ThreadLocal.withInitial(() -> new Scratch(graph.size()));
+    }
+
+    public SiteGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Find the sites within a given distance.
+     *
+     * @param n the site to be checked
+     * @param radius the distance to extend the search.
+     * @return the other sites within the given distance, in the order they were found
+     */
+    public int[] closeTo(int n, double radius) {
+        Scratch s = scratch.get();
+        int count = s.search(graph, n, radius);
+        return Arrays.copyOf(s.result, count);
+    }
+
+    /**
+     * Answer the query for every site, on the common pool.
+     *
+     * @see #closeToAll(double, ForkJoinPool)
+     */
+    public SiteGraph closeToAll(double radius) {
+        return closeToAll(radius, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Answer the query for every site in parallel.
+     *
+     * @param radius the distance to extend the search.
+     * @param pool runs the queries
+     * @return a graph in which the neighbours of every site are the sites close to it
+     */
+    public SiteGraph closeToAll(double radius, ForkJoinPool pool) {
+        int sites = graph.size();
+        int count = Math.max(1, Math.min(sites, 4 * pool.getParallelism()));
+        Chunk[] chunks = new Chunk[count];
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Chunk chunk = new Chunk((int) ((long) sites * i / count), (int) ((long) sites * (i + 1) / count));
+            chunks[i] = chunk;
+            tasks.add(pool.submit(() -> chunk.compute(graph, radius)));
+        }
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            tasks.get(i).join();
+            total += chunks[i].size;
+        }
+
+        int[] offsets = new int[sites + 1];
+        int[] neighbors = new int[total];
+        int size = 0;
+        for (Chunk chunk : chunks) {
+            for (int n = chunk.lo; n < chunk.hi; n++) {
+                offsets[n + 1] = offsets[n] + chunk.lengths[n - chunk.lo];
+            }
+            System.arraycopy(chunk.found, 0, neighbors, size, chunk.size);
+            size += chunk.size;
+        }
+        return new SiteGraph(offsets, neighbors, graph.x, graph.y);
+    }
+
+    // The sites lo to hi - 1 of a bulk query, with a scratch of its own
+    private static final class Chunk {
+        final int lo, hi;
+        final int[] lengths;
+        int[] found = new int[64];
+        int size;
+
+        Chunk(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+            lengths = new int[hi - lo];
+        }
+
+        void compute(SiteGraph graph, double radius) {
+            Scratch s = new Scratch(graph.size());
+            for (int n = lo; n < hi; n++) {
+                int count = s.search(graph, n, radius);
+                if (size + count > found.length) {
+                    found = Arrays.copyOf(found, Math.max(2 * found.length, size + count));
+                }
+                System.arraycopy(s.result, 0, found, size, count);
+                size += count;
+                lengths[n - lo] = count;
+            }
+        }
+    }
+
+    // The state of the queries of one thread
+    private static final class Scratch {
+        final int[] mark;
+        int epoch;
+        int[] stack = new int[64];
+        int[] result = new int[64];
+
+        Scratch(int sites) {
+            mark = new int[sites];
+        }
+
+        // Depth first search from n, returns the amount of sites in result
+        int search(SiteGraph graph, int n, double radius) {
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(mark, 0);
+                epoch = 1;
+            }
+            int[] offsets = graph.offsets;
+            int[] neighbors = graph.neighbors;
+            double x = graph.x[n];
+            double y = graph.y[n];
+            mark[n] = epoch;
+            int top = 0;
+            int count = 0;
+            push(top++, n);
+            while (top > 0) {
+                int m = stack[--top];
+                for (int i = offsets[m]; i < offsets[m + 1]; i++) {
+                    int k = neighbors[i];
+                    if (mark[k] == epoch) {
+                        continue;
+                    }
+                    mark[k] = epoch;
+                    if (Math.hypot(graph.x[k] - x, graph.y[k] - y) > radius) {
+                        continue;
+                    }
+                    if (count == result.length) {
+                        result = Arrays.copyOf(result, 2 * count);
+                    }
+                    result[count++] = k;
+                    push(top++, k);
+                }
+            }
+            return count;
+        }
+
+        private void push(int top, int n) {
+            if (top == stack.length) {
+                stack = Arrays.copyOf(stack, 2 * top);
+            }
+            stack[top] = n;
+        }
+    }
+}
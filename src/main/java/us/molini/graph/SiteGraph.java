@@ -0,0 +1,261 @@
+package us.molini.graph;
+
+import java.util.Arrays;
+import java.util.List;
+
+import be.humphreys.simplevoronoi.EdgeBuffer;
+import be.humphreys.simplevoronoi.GraphEdge;
+
+/**
+ * The adjacency of the sites of a Voronoi diagram in compressed sparse row form. The
+ * neighbours of site n are neighbors[offsets[n]] to neighbors[offsets[n + 1] - 1], each
+ * neighbour is listed once. Compared to a {@link Neighborhood} per site this needs no
+ * object per site or neighbour.
+ */
+public final class SiteGraph {
+
+    final int[] offsets;
+    final int[] neighbors;
+    final double[] x, y;
+    // The length of the border between the sites of each entry of neighbors, null if unknown
+    final double[] borders;
+
+    SiteGraph(int[] offsets, int[] neighbors, double[] x, double[] y) {
+        this(offsets, neighbors, x, y, null);
+    }
+
+    private SiteGraph(int[] offsets, int[] neighbors, double[] x, double[] y, double[] borders) {
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        this.x = x;
+        this.y = y;
+        this.borders = borders;
+    }
+
+    /**
+     * Build the graph of the sites that share an edge.
+     *
+     * @param x the X values of the sites, not copied
+     * @param y the Y values of the sites, not copied
+     * @param edges the edges of the diagram of the sites
+     * @return the graph
+     */
+    public static SiteGraph build(double[] x, double[] y, List<GraphEdge> edges) {
+        int count = edges.size();
+        int[] site1 = new int[count];
+        int[] site2 = new int[count];
+        double[] lengths = new double[count];
+        for (int i = 0; i < count; i++) {
+            GraphEdge e = edges.get(i);
+            site1[i] = e.site1;
+            site2[i] = e.site2;
+            lengths[i] = Math.hypot(e.x2 - e.x1, e.y2 - e.y1);
+        }
+        return build(x, y, site1, site2, lengths, count);
+    }
+
+    /**
+     * Build the graph of the sites that share an edge.
+     *
+     * @param x the X values of the sites, not copied
+     * @param y the Y values of the sites, not copied
+     * @param edges the edges of the diagram of the sites
+     * @return the graph
+     */
+    public static SiteGraph build(double[] x, double[] y, EdgeBuffer edges) {
+        int count = edges.size();
+        int[] site1 = new int[count];
+        int[] site2 = new int[count];
+        double[] lengths = new double[count];
+        for (int i = 0; i < count; i++) {
+            site1[i] = edges.getSite1(i);
+            site2[i] = edges.getSite2(i);
+            lengths[i] = Math.hypot(edges.getX2(i) - edges.getX1(i), edges.getY2(i) - edges.getY1(i));
+        }
+        return build(x, y, site1, site2, lengths, count);
+    }
+
+    /**
+     * Build the graph of the edges of a Delaunay triangulation. Unlike the edges of a
+     * diagram, the triangles do not depend on the bounding box, so the graph holds every
+     * pair of neighbouring sites. The lengths of the borders are not known.
+     *
+     * @param x the X values of the sites, not copied
+     * @param y the Y values of the sites, not copied
+     * @param triangles the sites of the triangles, three per triangle
+     * @return the graph
+     * @see be.humphreys.simplevoronoi.ArrayVoronoi#getTriangles()
+     */
+    public static SiteGraph build(double[] x, double[] y, int[] triangles) {
+        int count = triangles.length;
+        int[] site1 = new int[count];
+        int[] site2 = new int[count];
+        for (int t = 0; t < count; t += 3) {
+            for (int k = 0; k < 3; k++) {
+                site1[t + k] = triangles[t + k];
+                site2[t + k] = triangles[t + (k + 1) % 3];
+            }
+        }
+        return build(x, y, site1, site2, null, count);
+    }
+
+    private static SiteGraph build(double[] x, double[] y, int[] site1, int[] site2, double[] lengths, int count) {
+        int sites = x.length;
+        // Pass 1: the degree of every site, with edges reported twice counted twice
+        int[] offsets = new int[sites + 1];
+        for (int i = 0; i < count; i++) {
+            if (site1[i] != site2[i]) {
+                offsets[site1[i] + 1]++;
+                offsets[site2[i] + 1]++;
+            }
+        }
+        for (int n = 0; n < sites; n++) {
+            offsets[n + 1] += offsets[n];
+        }
+        // Pass 2: fill the rows, pairs that are reported twice are listed twice
+        int[] neighbors = new int[offsets[sites]];
+        double[] borders = lengths == null ? null : new double[neighbors.length];
+        int[] fill = Arrays.copyOf(offsets, sites);
+        for (int i = 0; i < count; i++) {
+            int a = site1[i];
+            int b = site2[i];
+            if (a == b) {
+                continue;
+            }
+            if (borders != null) {
+                borders[fill[a]] = lengths[i];
+                borders[fill[b]] = lengths[i];
+            }
+            neighbors[fill[a]++] = b;
+            neighbors[fill[b]++] = a;
+        }
+        // Pass 3: close the gaps of the duplicates. slot[m] is the last place of m in the new
+        // rows, so m is already listed in the row of n if it is at or after the start of that row
+        int[] slot = new int[sites];
+        Arrays.fill(slot, -1);
+        int size = 0;
+        for (int n = 0; n < sites; n++) {
+            int from = offsets[n];
+            offsets[n] = size;
+            for (int i = from; i < fill[n]; i++) {
+                int m = neighbors[i];
+                int listed = slot[m];
+                if (listed >= offsets[n]) {
+                    // A pair reported twice has the same border, keep the longer report of it
+                    if (borders != null && borders[i] > borders[listed]) {
+                        borders[listed] = borders[i];
+                    }
+                    continue;
+                }
+                slot[m] = size;
+                if (borders != null) {
+                    borders[size] = borders[i];
+                }
+                neighbors[size++] = m;
+            }
+        }
+        offsets[sites] = size;
+        if (size != neighbors.length) {
+            neighbors = Arrays.copyOf(neighbors, size);
+            borders = borders == null ? null : Arrays.copyOf(borders, size);
+        }
+        return new SiteGraph(offsets, neighbors, x, y, borders);
+    }
+
+    private static int indexOf(int[] neighbors, int from, int to, int site) {
+        for (int i = from; i < to; i++) {
+            if (neighbors[i] == site) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * The graph with the entries of neighbors that are kept. keep must be symmetric: an
+     * entry and the entry of the opposite direction are either both kept or both not.
+     */
+    SiteGraph filter(boolean[] keep) {
+        int sites = size();
+        int[] newOffsets = new int[sites + 1];
+        int size = 0;
+        for (int i = 0; i < neighbors.length; i++) {
+            size += keep[i] ? 1 : 0;
+        }
+        int[] newNeighbors = new int[size];
+        double[] newBorders = borders == null ? null : new double[size];
+        size = 0;
+        for (int n = 0; n < sites; n++) {
+            for (int i = offsets[n]; i < offsets[n + 1]; i++) {
+                if (keep[i]) {
+                    if (newBorders != null) {
+                        newBorders[size] = borders[i];
+                    }
+                    newNeighbors[size++] = neighbors[i];
+                }
+            }
+            newOffsets[n + 1] = size;
+        }
+        return new SiteGraph(newOffsets, newNeighbors, x, y, newBorders);
+    }
+
+    // The entry of neighbors for the step from a to b, -1 if they are no neighbours
+    int entry(int a, int b) {
+        return indexOf(neighbors, offsets[a], offsets[a + 1], b);
+    }
+
+    /** Return the number of sites. */
+    public int size() {
+        return x.length;
+    }
+
+    public double getX(int n) {
+        return x[n];
+    }
+
+    public double getY(int n) {
+        return y[n];
+    }
+
+    /** Return the number of neighbours of a site. */
+    public int getDegree(int n) {
+        return offsets[n + 1] - offsets[n];
+    }
+
+    /**
+     * @param n the site
+     * @param i the index of the neighbour, less than the degree
+     * @return the site of the neighbour
+     */
+    public int getNeighbor(int n, int i) {
+        return neighbors[offsets[n] + i];
+    }
+
+    /**
+     * @param n the site
+     * @param i the index of the neighbour, less than the degree
+     * @return the length of the border between the site and the neighbour within the bounding box
+     * @throws IllegalStateException if the graph was not built from the edges of a diagram
+     */
+    public double getBorderLength(int n, int i) {
+        if (borders == null) {
+            throw new IllegalStateException("The graph was not built from edges");
+        }
+        return borders[offsets[n] + i];
+    }
+
+    /** Return true if the graph knows the lengths of the borders between the sites. */
+    public boolean hasBorderLengths() {
+        return borders != null;
+    }
+
+    /** Return a new array with the neighbours of a site. */
+    public int[] getNeighbors(int n) {
+        return Arrays.copyOfRange(neighbors, offsets[n], offsets[n + 1]);
+    }
+
+    /** Return the distance between two sites. */
+    public double distance(int a, int b) {
+        return Math.hypot(x[a] - x[b], y[a] - y[b]);
+    }
+}
@@ -0,0 +1,176 @@
+package us.molini.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Finds the site whose cell contains a point, that is the nearest site. A uniform grid over
+ * the sites gives a site close to the point, from which the search walks to the neighbour
+ * that is closer to the point until no neighbour is. With about two sites per grid cell
+ * a query takes a few steps on average.
+ *
+ * <p>The walk finds the nearest site if the graph holds every pair of neighbouring sites,
+ * like a graph of the Delaunay triangles does. A graph of the edges of a diagram misses the
+ * pairs whose edge is outside of the bounding box or between sites closer than the minimal
+ * distance, so a walk on it may stop early for points near such pairs.
+ *
+ * <p>A locator does not change after it is built and can be used by any amount of threads.
+ */
+public final class SiteLocator {
+
+    private final SiteGraph graph;
+    private final double minX, minY, scaleX, scaleY;
+    private final int columns, rows;
+    // A site in or near each grid cell, row by row
+    private final int[] seed;
+
+    public SiteLocator(SiteGraph graph) {
+        this.graph = graph;
+        int sites = graph.size();
+        if (sites == 0) {
+            throw new IllegalArgumentException("The graph has no sites");
+        }
+        double x0 = graph.x[0], x1 = x0, y0 = graph.y[0], y1 = y0;
+        for (int n = 1; n < sites; n++) {
+            x0 = Math.min(x0, graph.x[n]);
+            x1 = Math.max(x1, graph.x[n]);
+            y0 = Math.min(y0, graph.y[n]);
+            y1 = Math.max(y1, graph.y[n]);
+        }
+        double w = Math.max(x1 - x0, Double.MIN_NORMAL);
+        double h = Math.max(y1 - y0, Double.MIN_NORMAL);
+        // About two sites per cell, with cells as square as the extent allows
+        double cells = Math.max(1.0, sites / 2.0);
+        columns = (int) Math.max(1, Math.min(cells, Math.round(Math.sqrt(cells * w / h))));
+        rows = (int) Math.max(1, Math.min(cells, Math.round(cells / columns)));
+        minX = x0;
+        minY = y0;
+        scaleX = columns / w;
+        scaleY = rows / h;
+
+        seed = new int[columns * rows];
+        Arrays.fill(seed, -1);
+        for (int n = 0; n < sites; n++) {
+            seed[cell(graph.x[n], graph.y[n])] = n;
+        }
+        // Empty cells take the site of the nearest filled cell of their row, then column.
+        // Every row with a site is filled by the first pass, so the second one fills all cells.
+        for (int r = 0; r < rows; r++) {
+            spread(r * columns, 1, columns);
+        }
+        for (int c = 0; c < columns; c++) {
+            spread(c, columns, rows);
+        }
+    }
+
+    // Fill the empty cells of a row or column from both directions
+    private void spread(int start, int step, int count) {
+        int last = -1;
+        int end = start + step * count;
+        for (int i = start; i != end; i += step) {
+            if (seed[i] >= 0) {
+                last = seed[i];
+            } else {
+                seed[i] = last;
+            }
+        }
+        last = -1;
+        for (int i = end - step; i != start - step; i -= step) {
+            if (seed[i] >= 0) {
+                last = seed[i];
+            } else {
+                seed[i] = last;
+            }
+        }
+    }
+
+    private int cell(double x, double y) {
+        int c = (int) Math.min(columns - 1, Math.max(0, (x - minX) * scaleX));
+        int r = (int) Math.min(rows - 1, Math.max(0, (y - minY) * scaleY));
+        return r * columns + c;
+    }
+
+    public SiteGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @param x the X value of the point
+     * @param y the Y value of the point
+     * @return the nearest site
+     */
+    public int nearest(double x, double y) {
+        return walk(seed[cell(x, y)], x, y);
+    }
+
+    /**
+     * Walk from a given site, which is fast if the point is near it, for example the answer
+     * for the previous point of a path.
+     *
+     * @param start the site to start at
+     * @param x the X value of the point
+     * @param y the Y value of the point
+     * @return the nearest site
+     */
+    public int walk(int start, double x, double y) {
+        int[] offsets = graph.offsets;
+        int[] neighbors = graph.neighbors;
+        double[] sx = graph.x, sy = graph.y;
+        int s = start;
+        double best = (sx[s] - x) * (sx[s] - x) + (sy[s] - y) * (sy[s] - y);
+        boolean moved = true;
+        while (moved) {
+            moved = false;
+            for (int i = offsets[s], end = offsets[s + 1]; i < end; i++) {
+                int n = neighbors[i];
+                double d = (sx[n] - x) * (sx[n] - x) + (sy[n] - y) * (sy[n] - y);
+                if (d < best) {
+                    best = d;
+                    s = n;
+                    moved = true;
+                    break;
+                }
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Locate many points on the common pool.
+     *
+     * @see #nearest(double[], int[], ForkJoinPool)
+     */
+    public int[] nearest(double[] points) {
+        int[] result = new int[points.length / 2];
+        nearest(points, result, ForkJoinPool.commonPool());
+        return result;
+    }
+
+    /**
+     * Locate many points in parallel.
+     *
+     * @param points the X and Y values of the points, X of the first point first
+     * @param result receives the nearest site of every point
+     * @param pool runs the queries
+     */
+    public void nearest(double[] points, int[] result, ForkJoinPool pool) {
+        int count = points.length / 2;
+        int chunks = Math.max(1, Math.min(count / 1024, 4 * pool.getParallelism()));
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            int lo = (int) ((long) count * i / chunks);
+            int hi = (int) ((long) count * (i + 1) / chunks);
+            tasks.add(pool.submit(() -> {
+                for (int p = lo; p < hi; p++) {
+                    result[p] = nearest(points[2 * p], points[2 * p + 1]);
+                }
+            }));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package us.molini.graph;
+
+/**
+ * Disjoint sets of the ints 0 to n - 1, with union by size and path halving.
+ */
+final class UnionFind {
+
+    private final int[] parent;
+    private final int[] size;
+
+    UnionFind(int n) {
+        parent = new int[n];
+        size = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+            size[i] = 1;
+        }
+    }
+
+    int find(int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /** Merge the sets of a and b, return false if they already were one set. */
+    boolean union(int a, int b) {
+        a = find(a);
+        b = find(b);
+        if (a == b) {
+            return false;
+        }
+        if (size[a] < size[b]) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        parent[b] = a;
+        size[a] += size[b];
+        return true;
+    }
+
+    /** Return the number of elements in the set of i. */
+    int size(int i) {
+        return size[find(i)];
+    }
+}
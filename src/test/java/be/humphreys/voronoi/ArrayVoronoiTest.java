@@ -0,0 +1,264 @@
+package be.humphreys.voronoi;
+
+import java.awt.geom.Path2D;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import be.humphreys.simplevoronoi.ArrayVoronoi;
+import be.humphreys.simplevoronoi.BeachLine;
+import be.humphreys.simplevoronoi.EdgeBuffer;
+import be.humphreys.simplevoronoi.EventQueue;
+import be.humphreys.simplevoronoi.GraphEdge;
+import be.humphreys.simplevoronoi.Voronoi;
+import be.humphreys.simplevoronoi.VoronoiMesh;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for the ArrayVoronoi class.
+ */
+public class ArrayVoronoiTest extends TestCase {
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(ArrayVoronoiTest.class);
+    }
+
+    /**
+     * Verify that the array engine returns exactly the same edges as the object engine.
+     */
+    void assertSameEdges(double x[], double y[], double minX, double maxX, double minY, double maxY) {
+        List<GraphEdge> expected = new Voronoi(0.1).generateVoronoi(x, y, minX, maxX, minY, maxY);
+        ArrayVoronoi alg = new ArrayVoronoi(0.1);
+        // Run twice to check that the reused buffers give the same result, then with the heap and the tree
+        for (int rep = 0; rep < 4; rep++) {
+            if (rep == 2) {
+                alg.setEventQueue(EventQueue.HEAP);
+            } else if (rep == 3) {
+                alg.setBeachLine(BeachLine.TREE);
+            }
+            int count = alg.generateVoronoi(x, y, minX, maxX, minY, maxY);
+            assertEquals("Wrong number of edges", expected.size(), count);
+            int i = 0;
+            for (GraphEdge e : expected) {
+                assertEquals(e.x1, alg.getX1(i), 0.0);
+                assertEquals(e.y1, alg.getY1(i), 0.0);
+                assertEquals(e.x2, alg.getX2(i), 0.0);
+                assertEquals(e.y2, alg.getY2(i), 0.0);
+                assertEquals(e.site1, alg.getSite1(i));
+                assertEquals(e.site2, alg.getSite2(i));
+                i++;
+            }
+        }
+    }
+
+    public void testBasic() {
+        double x[] = { -1, 1, 1, -1, 0 };
+        double y[] = { 1, 1, -1, -1, 0 };
+        assertSameEdges(x, y, -2, 2, -2, 2);
+    }
+
+    public void testStripe() {
+        double x[] = { -2, -1, 0, 2 };
+        double y[] = { -2, -1, 0, 2 };
+        assertSameEdges(x, y, -2, 2, -2, 2);
+    }
+
+    /**
+     * A regular grid, which has a lot of cocircular sites and duplicate coordinates.
+     */
+    public void testGrid() {
+        double x[] = new double[400];
+        double y[] = new double[400];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = i % 20;
+            y[i] = i / 20;
+        }
+        assertSameEdges(x, y, -1, 21, -1, 21);
+    }
+
+    public void testRandom() {
+        Random rand = new Random(2111956);
+        for (int n : new int[] { 2, 3, 10, 100, 5000 }) {
+            double x[] = new double[n];
+            double y[] = new double[n];
+            for (int i = 0; i < n; i++) {
+                x[i] = rand.nextDouble() * 1000.0;
+                y[i] = rand.nextDouble() * 1000.0;
+            }
+            assertSameEdges(x, y, 0, 1000, 0, 1000);
+        }
+    }
+
+    /**
+     * Streamed edges arrive in the order of the collected ones, for both engines.
+     */
+    public void testConsumer() {
+        Random rand = new Random(2111956);
+        double x[] = new double[2000];
+        double y[] = new double[2000];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = rand.nextDouble() * 1000.0;
+            y[i] = rand.nextDouble() * 1000.0;
+        }
+        List<GraphEdge> expected = new Voronoi(0.1).generateVoronoi(x, y, 0, 1000, 0, 1000);
+        EdgeBuffer streamed = new EdgeBuffer();
+        new Voronoi(0.1).generateVoronoi(x, y, 0, 1000, 0, 1000, streamed);
+        EdgeBuffer arrayStreamed = new EdgeBuffer();
+        ArrayVoronoi alg = new ArrayVoronoi(0.1);
+        alg.generateVoronoi(x, y, 0, 1000, 0, 1000, arrayStreamed);
+        assertEquals(0, alg.getEdgeCount());
+        assertEquals(expected.size(), streamed.size());
+        assertEquals(expected.size(), arrayStreamed.size());
+        int i = 0;
+        for (GraphEdge e : expected) {
+            for (EdgeBuffer buffer : new EdgeBuffer[] { streamed, arrayStreamed }) {
+                assertEquals(e.x1, buffer.getX1(i), 0.0);
+                assertEquals(e.y1, buffer.getY1(i), 0.0);
+                assertEquals(e.x2, buffer.getX2(i), 0.0);
+                assertEquals(e.y2, buffer.getY2(i), 0.0);
+                assertEquals(e.site1, buffer.getSite1(i));
+                assertEquals(e.site2, buffer.getSite2(i));
+            }
+            i++;
+        }
+    }
+
+    /**
+     * Clipping a diagram to another box gives the edges of a sweep with that box.
+     */
+    public void testReclip() {
+        Random rand = new Random(2111956);
+        double x[] = new double[20000];
+        double y[] = new double[20000];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = rand.nextDouble() * 1000.0;
+            y[i] = rand.nextDouble() * 1000.0;
+        }
+        ArrayVoronoi fresh = new ArrayVoronoi(0.1);
+        ArrayVoronoi alg = new ArrayVoronoi(0.1);
+        alg.generateVoronoi(x, y, 0, 1000, 0, 1000);
+        double boxes[][] = { { 200, 700, 100, 400 }, { -50, 1200, -10, 1010 }, { 0, 1000, 0, 1000 } };
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            for (double b[] : boxes) {
+                int count = fresh.generateVoronoi(x, y, b[0], b[1], b[2], b[3]);
+                EdgeBuffer streamed = new EdgeBuffer();
+                alg.reclip(b[0], b[1], b[2], b[3], streamed);
+                assertEquals(0, alg.getEdgeCount());
+                EdgeBuffer results[] = { streamed, null, null };
+                assertEquals(count, alg.reclip(b[0], b[1], b[2], b[3]));
+                results[1] = copy(alg.getEdges());
+                assertEquals(count, alg.reclip(b[0], b[1], b[2], b[3], pool));
+                results[2] = alg.getEdges();
+                for (EdgeBuffer edges : results) {
+                    assertEquals(count, edges.size());
+                    for (int i = 0; i < count; i++) {
+                        assertEquals(fresh.getX1(i), edges.getX1(i), 0.0);
+                        assertEquals(fresh.getY1(i), edges.getY1(i), 0.0);
+                        assertEquals(fresh.getX2(i), edges.getX2(i), 0.0);
+                        assertEquals(fresh.getY2(i), edges.getY2(i), 0.0);
+                        assertEquals(fresh.getSite1(i), edges.getSite1(i));
+                        assertEquals(fresh.getSite2(i), edges.getSite2(i));
+                    }
+                }
+                assertEquals(fresh.getMesh().getEdgeCount(), alg.getMesh().getEdgeCount());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Edges clipped to a convex polygon in the sweep are the edges of the mesh.
+     */
+    public void testWindow() {
+        Random rand = new Random(2111956);
+        double x[] = new double[5000];
+        double y[] = new double[5000];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = rand.nextDouble() * 1000.0;
+            y[i] = rand.nextDouble() * 1000.0;
+        }
+        double wx[] = { 500, 950, 800, 200, 50 };
+        double wy[] = { 50, 400, 950, 950, 400 };
+        ArrayVoronoi alg = new ArrayVoronoi(0);
+        int count = alg.generateVoronoi(x, y, wx, wy);
+        VoronoiMesh mesh = alg.getMesh();
+        assertEquals(mesh.getEdgeCount(), count);
+        Path2D.Double polygon = new Path2D.Double();
+        polygon.moveTo(wx[0], wy[0]);
+        for (int i = 1; i < wx.length; i++) {
+            polygon.lineTo(wx[i], wy[i]);
+        }
+        polygon.closePath();
+        // The mesh is in the order of the bisectors, the edges in the order they were clipped
+        Map<Long, Integer> meshEdges = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            meshEdges.put((long) mesh.getEdgeSite1(i) * x.length + mesh.getEdgeSite2(i), i);
+        }
+        for (int i = 0; i < count; i++) {
+            int m = meshEdges.get((long) alg.getSite1(i) * x.length + alg.getSite2(i));
+            assertEquals(mesh.getVertexX(mesh.getEdgeVertex1(m)), alg.getX1(i), 0.0);
+            assertEquals(mesh.getVertexY(mesh.getEdgeVertex1(m)), alg.getY1(i), 0.0);
+            assertEquals(mesh.getVertexX(mesh.getEdgeVertex2(m)), alg.getX2(i), 0.0);
+            assertEquals(mesh.getVertexY(mesh.getEdgeVertex2(m)), alg.getY2(i), 0.0);
+            assertTrue(polygon.intersects(alg.getX1(i) - 1e-9, alg.getY1(i) - 1e-9, 2e-9, 2e-9));
+        }
+
+        // The same polygon as a shape, again after clipping to a box
+        EdgeBuffer first = copy(alg.getEdges());
+        alg.reclip(0, 1000, 0, 1000);
+        assertEquals(count, alg.reclip(polygon));
+        assertEquals(count, new ArrayVoronoi(0).generateVoronoi(x, y, polygon));
+        for (int i = 0; i < count; i++) {
+            assertEquals(first.getX1(i), alg.getX1(i), 0.0);
+            assertEquals(first.getY2(i), alg.getY2(i), 0.0);
+        }
+
+        try {
+            alg.generateVoronoi(x, y, new double[] { 0, 10, 5, 10, 0 }, new double[] { 0, 0, 5, 10, 10 });
+            fail("A window that is not convex should throw an exception");
+        } catch (IllegalArgumentException ex) {
+        }
+        // A pentagram turns the same way at every corner, but goes around twice
+        double starX[] = new double[5];
+        double starY[] = new double[5];
+        for (int i = 0; i < 5; i++) {
+            starX[i] = 500 + 400 * Math.cos(4 * Math.PI * i / 5);
+            starY[i] = 500 + 400 * Math.sin(4 * Math.PI * i / 5);
+        }
+        try {
+            alg.generateVoronoi(x, y, starX, starY);
+            fail("A pentagram is not convex and should throw an exception");
+        } catch (IllegalArgumentException ex) {
+        }
+    }
+
+    static EdgeBuffer copy(EdgeBuffer edges) {
+        EdgeBuffer copy = new EdgeBuffer(edges.size());
+        for (int i = 0; i < edges.size(); i++) {
+            copy.add(edges.getX1(i), edges.getY1(i), edges.getX2(i), edges.getY2(i), edges.getSite1(i), edges.getSite2(i));
+        }
+        return copy;
+    }
+
+    /**
+     * Verify the class reacts gracefully to bogus input.
+     */
+    public void testPathology() {
+        ArrayVoronoi alg = new ArrayVoronoi(0.1);
+        assertEquals(0, alg.generateVoronoi(new double[0], new double[0], 0, 1, 0, 1));
+        try {
+            alg.generateVoronoi(new double[] { 1, 2 }, new double[] { 1 }, 0, 1, 0, 1);
+            fail("Input with different size should throw an exception");
+        } catch (IllegalArgumentException ex) {
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package be.humphreys.voronoi;
+
+import java.util.Random;
+
+import be.humphreys.simplevoronoi.ArrayVoronoi;
+import be.humphreys.simplevoronoi.VoronoiEngine;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for the Delaunay triangles of ArrayVoronoi.
+ */
+public class DelaunayTest extends TestCase {
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(DelaunayTest.class);
+    }
+
+    static double cross(double x[], double y[], int a, int b, int c) {
+        return (x[b] - x[a]) * (y[c] - y[a]) - (y[b] - y[a]) * (x[c] - x[a]);
+    }
+
+    /**
+     * The triangles are counterclockwise, cover the convex hull and no site is inside of
+     * the circumcircle of a triangle.
+     */
+    public void testTriangles() {
+        Random rand = new Random(2111956);
+        double x[] = new double[500];
+        double y[] = new double[500];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = rand.nextDouble() * 1000.0;
+            y[i] = rand.nextDouble() * 1000.0;
+        }
+        ArrayVoronoi alg = new ArrayVoronoi(0);
+        alg.generateVoronoi(x, y, 0, 1000, 0, 1000);
+        int triangles[] = alg.getTriangles();
+        assertEquals(3 * alg.getTriangleCount(), triangles.length);
+        int neighbors[] = alg.getTriangleNeighbors();
+        int hull = 0;
+        for (int t = 0; t < alg.getTriangleCount(); t++) {
+            int a = triangles[3 * t], b = triangles[3 * t + 1], c = triangles[3 * t + 2];
+            assertTrue(cross(x, y, a, b, c) > 0);
+            double d = 2 * cross(x, y, a, b, c);
+            double ax = x[a] - x[c], ay = y[a] - y[c], bx = x[b] - x[c], by = y[b] - y[c];
+            double ux = x[c] + ((ax * ax + ay * ay) * by - (bx * bx + by * by) * ay) / d;
+            double uy = y[c] + ((bx * bx + by * by) * ax - (ax * ax + ay * ay) * bx) / d;
+            double r2 = (x[a] - ux) * (x[a] - ux) + (y[a] - uy) * (y[a] - uy);
+            for (int i = 0; i < x.length; i++) {
+                double d2 = (x[i] - ux) * (x[i] - ux) + (y[i] - uy) * (y[i] - uy);
+                assertTrue(d2 >= r2 * (1 - 1e-9));
+            }
+            for (int k = 0; k < 3; k++) {
+                int n = neighbors[3 * t + k];
+                if (n < 0) {
+                    hull++;
+                    continue;
+                }
+                // The neighbour has the edge opposite to corner k the other way around
+                int p = triangles[3 * t + (k + 1) % 3];
+                int q = triangles[3 * t + (k + 2) % 3];
+                boolean found = false;
+                for (int j = 0; j < 3; j++) {
+                    found |= triangles[3 * n + j] == q && triangles[3 * n + (j + 1) % 3] == p;
+                }
+                assertTrue(found);
+            }
+        }
+        // Euler: a triangulation of n sites with h sites on the hull has 2n - 2 - h triangles
+        assertEquals(2 * x.length - 2 - hull, alg.getTriangleCount());
+    }
+
+    public void testEngine() {
+        double x[] = { 0, 1, 1, 0 };
+        double y[] = { 0, 0, 1.5, 1 };
+        int triangles[] = new VoronoiEngine(0).computeTriangles(x, y);
+        assertEquals(6, triangles.length);
+        for (int t = 0; t < 6; t += 3) {
+            assertTrue(cross(x, y, triangles[t], triangles[t + 1], triangles[t + 2]) > 0);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package be.humphreys.voronoi;
+
+import java.util.List;
+import java.util.Random;
+
+import be.humphreys.simplevoronoi.EdgeBuffer;
+import be.humphreys.simplevoronoi.GraphEdge;
+import be.humphreys.simplevoronoi.Voronoi;
+import be.humphreys.simplevoronoi.VoronoiEngine;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for the EdgeBuffer class.
+ */
+public class EdgeBufferTest extends TestCase {
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(EdgeBufferTest.class);
+    }
+
+    public void testGrow() {
+        EdgeBuffer buffer = new EdgeBuffer(0);
+        for (int i = 0; i < 1000; i++) {
+            buffer.add(i, i + 1, i + 2, i + 3, i, -i);
+        }
+        assertEquals(1000, buffer.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, buffer.getX1(i), 0.0);
+            assertEquals(i + 1, buffer.getY1(i), 0.0);
+            assertEquals(i + 2, buffer.getX2(i), 0.0);
+            assertEquals(i + 3, buffer.getY2(i), 0.0);
+            assertEquals(i, buffer.getSite1(i));
+            assertEquals(-i, buffer.getSite2(i));
+        }
+        buffer.clear();
+        assertEquals(0, buffer.size());
+    }
+
+    public void testListView() {
+        EdgeBuffer buffer = new EdgeBuffer();
+        List<GraphEdge> view = buffer.asList();
+        assertTrue(view.isEmpty());
+        buffer.add(1, 2, 3, 4, 5, 6);
+        assertEquals(1, view.size());
+        GraphEdge e = view.get(0);
+        assertEquals(1, e.x1, 0.0);
+        assertEquals(4, e.y2, 0.0);
+        assertEquals(6, e.site2);
+        try {
+            view.get(1);
+            fail("Expected an IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException ex) {
+            // expected
+        }
+        try {
+            view.add(e);
+            fail("Expected an UnsupportedOperationException");
+        } catch (UnsupportedOperationException ex) {
+            // expected
+        }
+    }
+
+    /**
+     * The buffer of the engine holds the edges of the object sweep, in the same order.
+     */
+    public void testEngineEdges() {
+        Random rand = new Random(2111956);
+        double x[] = new double[5000];
+        double y[] = new double[5000];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = rand.nextDouble() * 1000.0;
+            y[i] = rand.nextDouble() * 1000.0;
+        }
+        List<GraphEdge> expected = new Voronoi(0.1).generateVoronoi(x, y, 0, 1000, 0, 1000);
+        EdgeBuffer buffer = new VoronoiEngine(0.1).computeEdges(x, y, 0, 1000, 0, 1000);
+        assertEquals(expected.size(), buffer.size());
+        List<GraphEdge> view = buffer.asList();
+        for (int i = 0; i < expected.size(); i++) {
+            GraphEdge e = expected.get(i);
+            GraphEdge a = view.get(i);
+            assertEquals(e.x1, a.x1, 0.0);
+            assertEquals(e.y1, a.y1, 0.0);
+            assertEquals(e.x2, a.x2, 0.0);
+            assertEquals(e.y2, a.y2, 0.0);
+            assertEquals(e.site1, a.site1);
+            assertEquals(e.site2, a.site2);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package be.humphreys.voronoi;
+
+import java.awt.geom.Line2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import be.humphreys.simplevoronoi.EdgeBuffer;
+import be.humphreys.simplevoronoi.EdgeIndex;
+import be.humphreys.simplevoronoi.GraphEdge;
+import be.humphreys.simplevoronoi.VoronoiEngine;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for the EdgeIndex class.
+ */
+public class EdgeIndexTest extends TestCase {
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(EdgeIndexTest.class);
+    }
+
+    public void testQueries() {
+        Random rand = new Random(2111956);
+        double x[] = new double[20000];
+        double y[] = new double[20000];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = rand.nextDouble() * 1000.0;
+            y[i] = rand.nextDouble() * 1000.0;
+        }
+        EdgeBuffer edges = new VoronoiEngine(0).computeEdges(x, y, 0, 1000, 0, 1000);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        EdgeIndex index;
+        try {
+            index = new EdgeIndex(edges, pool);
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(edges.size(), index.size());
+
+        for (int q = 0; q < 50; q++) {
+            Rectangle2D area = new Rectangle2D.Double(rand.nextDouble() * 1100 - 100, rand.nextDouble() * 1100 - 100,
+                    rand.nextDouble() * 200, rand.nextDouble() * 200);
+            int expected[] = new int[edges.size()];
+            int count = 0;
+            for (int i = 0; i < edges.size(); i++) {
+                if (area.intersectsLine(edges.getX1(i), edges.getY1(i), edges.getX2(i), edges.getY2(i))) {
+                    expected[count++] = i;
+                }
+            }
+            assertTrue(Arrays.equals(Arrays.copyOf(expected, count), index.query(area)));
+
+            double px = rand.nextDouble() * 1200 - 100, py = rand.nextDouble() * 1200 - 100;
+            double best = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < edges.size(); i++) {
+                best = Math.min(best, Line2D.ptSegDist(edges.getX1(i), edges.getY1(i), edges.getX2(i), edges.getY2(i), px, py));
+            }
+            int nearest = index.nearest(px, py);
+            assertEquals(best, Line2D.ptSegDist(edges.getX1(nearest), edges.getY1(nearest), edges.getX2(nearest),
+                    edges.getY2(nearest), px, py));
+            assertEquals(best <= 1.0, index.nearest(px, py, 1.0) >= 0);
+        }
+    }
+
+    public void testGraphEdges() {
+        List<GraphEdge> edges = new VoronoiEngine(0).compute(new double[] { 0, 1, 0, 1 }, new double[] { 0, 0, 1, 1 },
+                -1, 2, -1, 2);
+        EdgeIndex index = new EdgeIndex(edges);
+        assertEquals(edges.size(), index.query(new Rectangle2D.Double(-1, -1, 3, 3)).length);
+        assertEquals(0, index.query(new Rectangle2D.Double(5, 5, 1, 1)).length);
+        assertEquals(-1, new EdgeIndex(new EdgeBuffer()).nearest(0, 0));
+    }
+}
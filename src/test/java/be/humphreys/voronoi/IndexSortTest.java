@@ -0,0 +1,102 @@
+package be.humphreys.voronoi;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import be.humphreys.simplevoronoi.IndexSort;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for the IndexSort class.
+ */
+public class IndexSortTest extends TestCase {
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(IndexSortTest.class);
+    }
+
+    /**
+     * Sort with a comparator, the way Voronoi used to sort its sites.
+     */
+    Integer[] expectedOrder(final double x[], final double y[]) {
+        Integer order[] = new Integer[x.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer p1, Integer p2) {
+                if (y[p1] < y[p2])
+                    return -1;
+                if (y[p1] > y[p2])
+                    return 1;
+                if (x[p1] < x[p2])
+                    return -1;
+                if (x[p1] > x[p2])
+                    return 1;
+                return 0;
+            }
+        });
+        return order;
+    }
+
+    void assertSorted(double x[], double y[], IndexSort sorter) {
+        Integer expected[] = expectedOrder(x, y);
+        int order[] = new int[x.length];
+        sorter.sort(y, x, x.length, order);
+        for (int i = 0; i < order.length; i++) {
+            assertEquals("Wrong index at " + i, expected[i].intValue(), order[i]);
+        }
+    }
+
+    /**
+     * Random coordinates with many duplicates, negative values and signed zeros.
+     */
+    public void testOrder() {
+        Random rand = new Random(2111956);
+        IndexSort sorter = new IndexSort();
+        for (int n : new int[] { 0, 1, 7, 63, 64, 1000, 100000 }) {
+            double x[] = new double[n];
+            double y[] = new double[n];
+            for (int i = 0; i < n; i++) {
+                x[i] = rand.nextInt(50) - 25.0;
+                y[i] = (rand.nextInt(100) - 50) * 0.5;
+                if (x[i] == 0 && rand.nextBoolean()) {
+                    x[i] = -0.0;
+                }
+                if (rand.nextInt(10) == 0) {
+                    y[i] = rand.nextGaussian() * 1e6;
+                }
+            }
+            assertSorted(x, y, sorter);
+        }
+    }
+
+    /**
+     * Force the parallel passes on a moderate input.
+     */
+    public void testParallel() {
+        Random rand = new Random(2111956);
+        IndexSort sorter = new IndexSort();
+        sorter.setParallelThreshold(1000);
+        double x[] = new double[200000];
+        double y[] = new double[200000];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = rand.nextDouble() * 1000.0;
+            y[i] = rand.nextInt(1000);
+        }
+        assertSorted(x, y, sorter);
+
+        // Without secondary key
+        int order[] = IndexSort.sort(x, null, x.length);
+        for (int i = 1; i < order.length; i++) {
+            assertTrue(x[order[i - 1]] <= x[order[i]]);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package be.humphreys.voronoi;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import be.humphreys.simplevoronoi.GraphEdge;
+import be.humphreys.simplevoronoi.ParallelVoronoi;
+import be.humphreys.simplevoronoi.Voronoi;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for the ParallelVoronoi class.
+ */
+public class ParallelVoronoiTest extends TestCase {
+
+    static final Comparator<GraphEdge> EDGE_ORDER = Comparator.<GraphEdge> comparingInt(e -> e.site1)
+            .thenComparingInt(e -> e.site2)
+            .thenComparingDouble(e -> e.x1)
+            .thenComparingDouble(e -> e.y1)
+            .thenComparingDouble(e -> e.x2)
+            .thenComparingDouble(e -> e.y2);
+
+    ForkJoinPool pool;
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(ParallelVoronoiTest.class);
+    }
+
+    @Override
+    protected void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @Override
+    protected void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Verify that the strips together hold exactly the edges of the serial sweep.
+     */
+    void assertSameEdges(double minDistance, double x[], double y[], double minX, double maxX, double minY, double maxY) {
+        List<GraphEdge> expected = new ArrayList<>(new Voronoi(minDistance).generateVoronoi(x, y, minX, maxX, minY, maxY));
+        ParallelVoronoi alg = new ParallelVoronoi(minDistance, pool);
+        alg.setParallelThreshold(0);
+        // Twice, to check that the reused strips give the same result
+        for (int rep = 0; rep < 2; rep++) {
+            List<GraphEdge> actual = alg.generateVoronoi(x, y, minX, maxX, minY, maxY);
+            assertEquals("Wrong number of edges", expected.size(), actual.size());
+            expected.sort(EDGE_ORDER);
+            actual.sort(EDGE_ORDER);
+            for (int i = 0; i < expected.size(); i++) {
+                GraphEdge e = expected.get(i);
+                GraphEdge a = actual.get(i);
+                assertEquals(e.site1, a.site1);
+                assertEquals(e.site2, a.site2);
+                assertEquals(e.x1, a.x1, 0.0);
+                assertEquals(e.y1, a.y1, 0.0);
+                assertEquals(e.x2, a.x2, 0.0);
+                assertEquals(e.y2, a.y2, 0.0);
+            }
+        }
+    }
+
+    public void testRandom() {
+        Random rand = new Random(2111956);
+        double x[] = new double[30000];
+        double y[] = new double[30000];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = rand.nextDouble() * 1000.0;
+            y[i] = rand.nextDouble() * 1000.0;
+        }
+        assertSameEdges(0.1, x, y, 0, 1000, 0, 1000);
+        // Border smaller and larger than the area of the sites
+        assertSameEdges(0.1, x, y, 100, 900, 200, 300);
+        assertSameEdges(0.1, x, y, -5000, 5000, -5000, 5000);
+    }
+
+    /**
+     * Dense clusters and a lot of empty space between them, so that the strips need larger halos.
+     */
+    public void testClusters() {
+        Random rand = new Random(2111956);
+        double x[] = new double[20000];
+        double y[] = new double[20000];
+        for (int i = 0; i < x.length; i++) {
+            double cx = (i % 7) * 150.0;
+            double cy = (i % 5) * 200.0;
+            x[i] = cx + rand.nextGaussian() * 5.0;
+            y[i] = cy + rand.nextGaussian() * 5.0;
+        }
+        assertSameEdges(0.1, x, y, -100, 1100, -100, 1100);
+    }
+
+    /**
+     * A regular grid, with duplicate coordinates and cocircular sites.
+     */
+    public void testGrid() {
+        double x[] = new double[150 * 150];
+        double y[] = new double[150 * 150];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = i % 150;
+            y[i] = i / 150;
+        }
+        assertSameEdges(0.1, x, y, -1, 151, -1, 151);
+    }
+
+    /**
+     * Sites that are closer than the minimal distance.
+     */
+    public void testMinDistance() {
+        Random rand = new Random(2111956);
+        double x[] = new double[20000];
+        double y[] = new double[20000];
+        for (int i = 0; i < x.length; i += 2) {
+            x[i] = rand.nextDouble() * 1000.0;
+            y[i] = rand.nextDouble() * 1000.0;
+            x[i + 1] = x[i] + 0.1 + (i % 3) * 0.2;
+            y[i + 1] = y[i];
+        }
+        assertSameEdges(0.5, x, y, 0, 1000, 0, 1000);
+    }
+
+    /**
+     * Sites that are given twice, which are computed by a single sweep.
+     */
+    public void testDuplicates() {
+        Random rand = new Random(2111956);
+        double x[] = new double[20000];
+        double y[] = new double[20000];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = rand.nextInt(1000);
+            y[i] = rand.nextInt(1000);
+        }
+        assertSameEdges(0.1, x, y, 0, 1000, 0, 1000);
+    }
+
+    public void testSmall() {
+        double x[] = { -1, 1, 1, -1, 0 };
+        double y[] = { 1, 1, -1, -1, 0 };
+        assertSameEdges(0.1, x, y, -2, 2, -2, 2);
+    }
+}
@@ -0,0 +1,151 @@
+package be.humphreys.voronoi;
+
+import java.awt.Shape;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Random;
+
+import be.humphreys.simplevoronoi.VoronoiCells;
+import be.humphreys.simplevoronoi.VoronoiEngine;
+import be.humphreys.simplevoronoi.VoronoiMesh;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for the VoronoiCells class.
+ */
+public class VoronoiCellsTest extends TestCase {
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(VoronoiCellsTest.class);
+    }
+
+    static double area(VoronoiCells cells, int site) {
+        double area = 0;
+        int count = cells.getPointCount(site);
+        for (int i = 0; i < count; i++) {
+            int j = (i + 1) % count;
+            area += cells.getX(site, i) * cells.getY(site, j) - cells.getX(site, j) * cells.getY(site, i);
+        }
+        return area / 2;
+    }
+
+    /**
+     * The cells are counterclockwise, cover the box and contain their sites.
+     */
+    public void testCoverBox() {
+        Random rand = new Random(2111956);
+        double x[] = new double[3000];
+        double y[] = new double[3000];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = rand.nextDouble() * 1000.0;
+            y[i] = rand.nextDouble() * 1000.0;
+        }
+        VoronoiCells cells = new VoronoiEngine(0).computeCells(x, y, 100, 900, 50, 700);
+        assertEquals(x.length, cells.getSiteCount());
+        double total = 0;
+        for (int i = 0; i < x.length; i++) {
+            double area = area(cells, i);
+            assertTrue(area >= 0);
+            total += area;
+            boolean inBox = x[i] > 100 && x[i] < 900 && y[i] > 50 && y[i] < 700;
+            if (inBox) {
+                assertTrue(cells.getPath(i).contains(x[i], y[i]));
+            }
+            assertEquals(2 * cells.getPointCount(i), cells.getCoordinates(i).length);
+        }
+        assertEquals(800 * 650, total, 1e-6);
+    }
+
+    public void testSquare() {
+        double x[] = { -1, 1, 1, -1, 0 };
+        double y[] = { 1, 1, -1, -1, 0 };
+        VoronoiCells cells = new VoronoiEngine(0).computeCells(x, y, -2, 2, -2, 2);
+        assertEquals(4, cells.getPointCount(4));
+        assertEquals(2, area(cells, 4), 1e-12);
+        for (int i = 0; i < 4; i++) {
+            // Two edges, two border points and the corner of the box
+            assertEquals(5, cells.getPointCount(i));
+            assertEquals(3.5, area(cells, i), 1e-12);
+        }
+    }
+
+    public void testSingleSite() {
+        VoronoiCells cells = new VoronoiEngine(0).computeCells(new double[] { 1 }, new double[] { 1 }, 0, 2, 0, 3);
+        assertEquals(4, cells.getPointCount(0));
+        assertEquals(6, area(cells, 0), 0.0);
+    }
+
+    /**
+     * Sites outside of the box have an empty cell, or cover the box.
+     */
+    public void testOutside() {
+        double x[] = { 10, 11 };
+        double y[] = { 10, 10 };
+        VoronoiCells cells = new VoronoiEngine(0).computeCells(x, y, 0, 1, 0, 1);
+        assertEquals(4, cells.getPointCount(0));
+        assertEquals(0, cells.getPointCount(1));
+        assertTrue(cells.getPath(1).getBounds2D().isEmpty());
+    }
+
+    /**
+     * Cells clipped to a hexagon and a circle cover them and are closed along their outline.
+     */
+    public void testWindow() {
+        Random rand = new Random(2111956);
+        double x[] = new double[3000];
+        double y[] = new double[3000];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = rand.nextDouble() * 1000.0;
+            y[i] = rand.nextDouble() * 1000.0;
+        }
+        // Clockwise, the window is turned around
+        Path2D.Double hexagon = new Path2D.Double();
+        for (int k = 0; k < 6; k++) {
+            double angle = -k * Math.PI / 3;
+            double hx = 500 + 400 * Math.cos(angle), hy = 500 + 400 * Math.sin(angle);
+            if (k == 0) {
+                hexagon.moveTo(hx, hy);
+            } else {
+                hexagon.lineTo(hx, hy);
+            }
+        }
+        hexagon.closePath();
+        Ellipse2D.Double circle = new Ellipse2D.Double(100, 100, 800, 800);
+        VoronoiEngine engine = new VoronoiEngine(0);
+        for (Shape window : new Shape[] { hexagon, circle }) {
+            VoronoiCells cells = engine.computeCells(x, y, window);
+            double windowArea = 0;
+            VoronoiMesh mesh = cells.getMesh();
+            double total = 0;
+            for (int i = 0; i < x.length; i++) {
+                double area = area(cells, i);
+                assertTrue(area >= 0);
+                total += area;
+                // The sites close to the outline of the circle may be outside of its flattened outline
+                if (window.contains(x[i], y[i]) && Math.hypot(x[i] - 500, y[i] - 500) < 399) {
+                    assertTrue(cells.getPath(i).contains(x[i], y[i]));
+                }
+            }
+            Rectangle2D bounds = window.getBounds2D();
+            bounds.setRect(bounds.getX() - 1e-9, bounds.getY() - 1e-9, bounds.getWidth() + 2e-9, bounds.getHeight() + 2e-9);
+            for (int v = 0; v < mesh.getVertexCount(); v++) {
+                assertTrue(bounds.contains(mesh.getVertexX(v), mesh.getVertexY(v)));
+            }
+            if (window == hexagon) {
+                windowArea = 3 * Math.sqrt(3) / 2 * 400 * 400;
+                assertEquals(windowArea, total, 1e-6);
+            } else {
+                // The flattened circle is a little smaller
+                windowArea = Math.PI * 400 * 400;
+                assertEquals(windowArea, total, windowArea * 2e-3);
+                assertTrue(total < windowArea);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package be.humphreys.voronoi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import be.humphreys.simplevoronoi.BeachLine;
+import be.humphreys.simplevoronoi.EventQueue;
+import be.humphreys.simplevoronoi.GraphEdge;
+import be.humphreys.simplevoronoi.Voronoi;
+import be.humphreys.simplevoronoi.VoronoiEngine;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for the VoronoiEngine class.
+ */
+public class VoronoiEngineTest extends TestCase {
+
+    ExecutorService executor;
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(VoronoiEngineTest.class);
+    }
+
+    @Override
+    protected void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @Override
+    protected void tearDown() {
+        executor.shutdown();
+    }
+
+    static double[][] randomSites(long seed, int count) {
+        Random rand = new Random(seed);
+        double sites[][] = new double[2][count];
+        for (int i = 0; i < count; i++) {
+            sites[0][i] = rand.nextDouble() * 1000.0;
+            sites[1][i] = rand.nextDouble() * 1000.0;
+        }
+        return sites;
+    }
+
+    static void assertSameEdges(List<GraphEdge> expected, List<GraphEdge> actual) {
+        assertEquals("Wrong number of edges", expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            GraphEdge e = expected.get(i);
+            GraphEdge a = actual.get(i);
+            assertEquals(e.x1, a.x1, 0.0);
+            assertEquals(e.y1, a.y1, 0.0);
+            assertEquals(e.x2, a.x2, 0.0);
+            assertEquals(e.y2, a.y2, 0.0);
+            assertEquals(e.site1, a.site1);
+            assertEquals(e.site2, a.site2);
+        }
+    }
+
+    /**
+     * One engine shared by several threads, each computing its own diagrams.
+     */
+    public void testSharedEngine() throws Exception {
+        final VoronoiEngine engine = new VoronoiEngine(0.1, EventQueue.HEAP, BeachLine.TREE);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            final long seed = t;
+            futures.add(executor.submit(() -> {
+                for (int rep = 0; rep < 5; rep++) {
+                    double sites[][] = randomSites(seed * 10 + rep, 2000);
+                    List<GraphEdge> expected = new Voronoi(0.1).generateVoronoi(sites[0], sites[1], 0, 1000, 0, 1000);
+                    assertSameEdges(expected, engine.compute(sites[0], sites[1], 0, 1000, 0, 1000));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    public void testComputeAll() {
+        VoronoiEngine engine = new VoronoiEngine(0.1);
+        List<VoronoiEngine.Request> requests = new ArrayList<>();
+        List<List<GraphEdge>> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            double sites[][] = randomSites(i, 100 * (i + 1));
+            requests.add(new VoronoiEngine.Request(sites[0], sites[1], -i, 1000, 0, 1000 + i));
+            expected.add(new Voronoi(0.1).generateVoronoi(sites[0], sites[1], -i, 1000, 0, 1000 + i));
+        }
+        List<List<GraphEdge>> actual = engine.computeAll(requests, executor);
+        assertEquals(requests.size(), actual.size());
+        for (int i = 0; i < requests.size(); i++) {
+            assertSameEdges(expected.get(i), actual.get(i));
+        }
+    }
+
+    public void testRequestLengths() {
+        try {
+            new VoronoiEngine.Request(new double[] { 1, 2 }, new double[] { 1 }, 0, 3, 0, 3);
+            fail("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package be.humphreys.voronoi;
+
+import java.util.Random;
+
+import be.humphreys.simplevoronoi.VoronoiCells;
+import be.humphreys.simplevoronoi.VoronoiEngine;
+import be.humphreys.simplevoronoi.VoronoiHalfEdges;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for the VoronoiHalfEdges class.
+ */
+public class VoronoiHalfEdgesTest extends TestCase {
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(VoronoiHalfEdgesTest.class);
+    }
+
+    public void testLinks() {
+        Random rand = new Random(2111956);
+        double x[] = new double[3000];
+        double y[] = new double[3000];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = rand.nextDouble() * 1000.0;
+            y[i] = rand.nextDouble() * 1000.0;
+        }
+        VoronoiHalfEdges dcel = new VoronoiEngine(0).computeHalfEdges(x, y, 100, 900, 50, 700);
+        VoronoiCells cells = dcel.getCells();
+        int outside = 0;
+        for (int h = 0; h < dcel.getHalfEdgeCount(); h++) {
+            int twin = dcel.getTwin(h);
+            assertEquals(h, dcel.getTwin(twin));
+            assertTrue(dcel.getSite(h) != dcel.getSite(twin));
+            assertEquals(h, dcel.getPrev(dcel.getNext(h)));
+            assertEquals(dcel.getOrigin(twin), dcel.getOrigin(dcel.getNext(h)));
+            assertEquals(dcel.getSite(h), dcel.getSite(dcel.getNext(h)));
+            if (dcel.getSite(h) < 0) {
+                outside++;
+                assertEquals(-1, dcel.getEdge(h));
+            }
+        }
+        // The outside is one cycle
+        int h = dcel.getHalfEdgeCount() - 1;
+        assertEquals(-1, dcel.getSite(h));
+        int count = 0;
+        int start = h;
+        do {
+            count++;
+            h = dcel.getNext(h);
+        } while (h != start);
+        assertEquals(outside, count);
+
+        // The cycles of the sites are their cells
+        for (int s = 0; s < x.length; s++) {
+            h = dcel.getSiteHalfEdge(s);
+            if (h < 0) {
+                assertEquals(0, cells.getPointCount(s));
+                continue;
+            }
+            for (int i = 0; i < cells.getPointCount(s); i++) {
+                assertEquals(cells.getVertex(s, i), dcel.getOrigin(h));
+                h = dcel.getNext(h);
+            }
+            assertEquals(dcel.getSiteHalfEdge(s), h);
+        }
+
+        // Around a vertex
+        for (int v = 0; v < dcel.getVertexCount(); v++) {
+            h = dcel.getVertexHalfEdge(v);
+            int degree = 0;
+            do {
+                assertEquals(v, dcel.getOrigin(h));
+                degree++;
+                h = dcel.getTwin(dcel.getPrev(h));
+            } while (h != dcel.getVertexHalfEdge(v));
+            assertTrue(degree == 2 || degree == 3);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package be.humphreys.voronoi;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import be.humphreys.simplevoronoi.ArrayVoronoi;
+import be.humphreys.simplevoronoi.VoronoiMesh;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for the VoronoiMesh class.
+ */
+public class VoronoiMeshTest extends TestCase {
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(VoronoiMeshTest.class);
+    }
+
+    static long key(int site1, int site2) {
+        return Math.min(site1, site2) * 1000000L + Math.max(site1, site2);
+    }
+
+    /**
+     * Every mesh edge is one of the (not degenerate) edges of the sweep, and the
+     * vertices are shared by the edges that meet there.
+     */
+    public void testSameEdges() {
+        Random rand = new Random(2111956);
+        double x[] = new double[3000];
+        double y[] = new double[3000];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = rand.nextDouble() * 1000.0;
+            y[i] = rand.nextDouble() * 1000.0;
+        }
+        ArrayVoronoi alg = new ArrayVoronoi(0);
+        int count = alg.generateVoronoi(x, y, 100, 900, 50, 700);
+        VoronoiMesh mesh = alg.getMesh();
+
+        Map<Long, Integer> edges = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            if (alg.getX1(i) != alg.getX2(i) || alg.getY1(i) != alg.getY2(i)) {
+                assertNull("Edge reported twice", edges.put(key(alg.getSite1(i), alg.getSite2(i)), i));
+            }
+        }
+        assertEquals(edges.size(), mesh.getEdgeCount());
+
+        int uses[] = new int[mesh.getVertexCount()];
+        for (int i = 0; i < mesh.getEdgeCount(); i++) {
+            Integer edge = edges.get(key(mesh.getEdgeSite1(i), mesh.getEdgeSite2(i)));
+            assertNotNull(edge);
+            int v1 = mesh.getEdgeVertex1(i);
+            int v2 = mesh.getEdgeVertex2(i);
+            uses[v1]++;
+            uses[v2]++;
+            double d1 = Math.abs(mesh.getVertexX(v1) - alg.getX1(edge)) + Math.abs(mesh.getVertexY(v1) - alg.getY1(edge))
+                    + Math.abs(mesh.getVertexX(v2) - alg.getX2(edge)) + Math.abs(mesh.getVertexY(v2) - alg.getY2(edge));
+            double d2 = Math.abs(mesh.getVertexX(v2) - alg.getX1(edge)) + Math.abs(mesh.getVertexY(v2) - alg.getY1(edge))
+                    + Math.abs(mesh.getVertexX(v1) - alg.getX2(edge)) + Math.abs(mesh.getVertexY(v1) - alg.getY2(edge));
+            assertTrue(Math.min(d1, d2) < 1e-9);
+        }
+        for (int v = 0; v < mesh.getVertexCount(); v++) {
+            assertEquals(mesh.isBorderVertex(v) ? 1 : 3, uses[v]);
+            assertTrue(mesh.getVertexX(v) >= 100 && mesh.getVertexX(v) <= 900);
+            assertTrue(mesh.getVertexY(v) >= 50 && mesh.getVertexY(v) <= 700);
+        }
+        assertEquals(2 * mesh.getVertexCount(), mesh.getVertexCoordinates().length);
+        assertEquals(2 * mesh.getEdgeCount(), mesh.getEdgeIndices().length);
+    }
+
+    public void testSquare() {
+        double x[] = { -1, 1, 1, -1, 0 };
+        double y[] = { 1, 1, -1, -1, 0 };
+        ArrayVoronoi alg = new ArrayVoronoi(0);
+        alg.generateVoronoi(x, y, -2, 2, -2, 2);
+        VoronoiMesh mesh = alg.getMesh();
+        // The cell of the center is a diamond, each corner of it has two edges to the border
+        assertEquals(8, mesh.getEdgeCount());
+        assertEquals(8, mesh.getVertexCount());
+    }
+}
@@ -0,0 +1,142 @@
+package be.humphreys.voronoi;
+
+import java.awt.Graphics2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import be.humphreys.simplevoronoi.EdgeBuffer;
+import be.humphreys.simplevoronoi.VoronoiEngine;
+import be.humphreys.simplevoronoi.VoronoiPath;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for the VoronoiPath class.
+ */
+public class VoronoiPathTest extends TestCase {
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(VoronoiPathTest.class);
+    }
+
+    // The amount and the total length of the lines of a path
+    static double[] measure(Path2D path) {
+        double count = 0, length = 0, x = 0, y = 0;
+        double c[] = new double[6];
+        for (PathIterator it = path.getPathIterator(null); !it.isDone(); it.next()) {
+            if (it.currentSegment(c) == PathIterator.SEG_LINETO) {
+                count++;
+                length += Math.hypot(c[0] - x, c[1] - y);
+            }
+            x = c[0];
+            y = c[1];
+        }
+        return new double[] { count, length };
+    }
+
+    static EdgeBuffer randomEdges(long seed) {
+        Random rand = new Random(seed);
+        double x[] = new double[2000];
+        double y[] = new double[2000];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = rand.nextDouble() * 1000.0;
+            y[i] = rand.nextDouble() * 1000.0;
+        }
+        return new VoronoiEngine(0).computeEdges(x, y, 0, 1000, 0, 1000);
+    }
+
+    public void testSinglePath() {
+        EdgeBuffer edges = randomEdges(2111956);
+        double length = 0;
+        for (int i = 0; i < edges.size(); i++) {
+            length += Math.hypot(edges.getX2(i) - edges.getX1(i), edges.getY2(i) - edges.getY1(i));
+        }
+        VoronoiPath path = new VoronoiPath();
+        path.set(edges);
+        double m[] = measure(path.getPath());
+        assertEquals(edges.size(), (int) m[0]);
+        assertEquals(length, m[1], 1e-6);
+        // Refreshing replaces the edges
+        path.set(edges.asList());
+        assertEquals(edges.size(), (int) measure(path.getPath())[0]);
+    }
+
+    /**
+     * The tiles hold the edges cut at the tile borders, together exactly once.
+     */
+    public void testTiles() {
+        EdgeBuffer edges = randomEdges(1956);
+        VoronoiPath path = new VoronoiPath(8, 6, 0, 800, 0, 600);
+        path.set(edges);
+        double whole = measure(path.getPath())[1];
+        double tiled = 0;
+        for (int r = 0; r < path.getRows(); r++) {
+            for (int c = 0; c < path.getColumns(); c++) {
+                Path2D tile = path.getTile(c, r);
+                tiled += measure(tile)[1];
+                // Inner tiles are bounded, outer tiles reach to the box
+                Rectangle2D b = tile.getBounds2D();
+                if (c > 0) {
+                    assertTrue(b.getMinX() >= c * 100 - 1e-9);
+                }
+                if (c < 7) {
+                    assertTrue(b.getMaxX() <= (c + 1) * 100 + 1e-9);
+                }
+                if (r > 0) {
+                    assertTrue(b.getMinY() >= r * 100 - 1e-9);
+                }
+                if (r < 5) {
+                    assertTrue(b.getMaxY() <= (r + 1) * 100 + 1e-9);
+                }
+            }
+        }
+        assertEquals(whole, tiled, 1e-6);
+
+        BufferedImage image = new BufferedImage(200, 200, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setClip(0, 0, 200, 200);
+        path.draw(g);
+        g.dispose();
+        boolean painted = false;
+        for (int i = 0; i < 200 && !painted; i++) {
+            for (int j = 0; j < 200 && !painted; j++) {
+                painted = image.getRGB(i, j) != 0;
+            }
+        }
+        assertTrue(painted);
+    }
+
+    /**
+     * Edges that lie on a tile border, like the edges of a lattice, are in one tile only.
+     */
+    public void testEdgesOnBorders() {
+        EdgeBuffer edges = new EdgeBuffer();
+        for (int k = 1; k < 8; k++) {
+            edges.add(k * 100, 50, k * 100, 550, 0, 1);
+        }
+        for (int k = 1; k < 6; k++) {
+            edges.add(50, k * 100, 750, k * 100, 0, 1);
+        }
+        // Also outside of the grid and on its outer sides
+        edges.add(0, -50, 0, 650, 0, 1);
+        edges.add(-50, 600, 850, 600, 0, 1);
+        VoronoiPath path = new VoronoiPath(8, 6, 0, 800, 0, 600);
+        path.set(edges);
+        double whole[] = measure(path.getPath());
+        double tiled = 0;
+        for (int r = 0; r < path.getRows(); r++) {
+            for (int c = 0; c < path.getColumns(); c++) {
+                tiled += measure(path.getTile(c, r))[1];
+            }
+        }
+        assertEquals(7 * 500 + 5 * 700 + 700 + 900, whole[1], 1e-9);
+        assertEquals(whole[1], tiled, 1e-9);
+    }
+}
@@ -0,0 +1,104 @@
+package be.humphreys.voronoi;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import be.humphreys.simplevoronoi.VoronoiCells;
+import be.humphreys.simplevoronoi.VoronoiEngine;
+import be.humphreys.simplevoronoi.VoronoiRaster;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for the VoronoiRaster class.
+ */
+public class VoronoiRasterTest extends TestCase {
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(VoronoiRasterTest.class);
+    }
+
+    double x[] = new double[500];
+    double y[] = new double[500];
+    VoronoiCells cells;
+
+    @Override
+    protected void setUp() {
+        Random rand = new Random(2111956);
+        for (int i = 0; i < x.length; i++) {
+            x[i] = rand.nextDouble() * 1000.0;
+            y[i] = rand.nextDouble() * 1000.0;
+        }
+        cells = new VoronoiEngine(0).computeCells(x, y, 0, 1000, 0, 1000);
+    }
+
+    double nearest(double px, double py) {
+        double best = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < x.length; i++) {
+            best = Math.min(best, Math.hypot(x[i] - px, y[i] - py));
+        }
+        return best;
+    }
+
+    /**
+     * Every pixel gets the site nearest to its centre, pixels outside of the box get none.
+     */
+    public void testLabels() {
+        // 5 units per pixel, one column and row of pixels outside of the box on each side
+        ForkJoinPool pool = new ForkJoinPool(3);
+        int labels[];
+        int exact[] = new int[202 * 162];
+        try {
+            VoronoiRaster raster = new VoronoiRaster(202, 162, -5, 1005, -5, 805, pool);
+            labels = raster.rasterize(cells);
+            raster.rasterizeExact(cells, x, y, exact);
+        } finally {
+            pool.shutdown();
+        }
+        for (int r = 0; r < 162; r++) {
+            for (int c = 0; c < 202; c++) {
+                int p = r * 202 + c;
+                double px = -5 + (c + 0.5) * 5, py = -5 + (r + 0.5) * 5;
+                if (r == 0 || c == 0 || c == 201) {
+                    assertEquals(VoronoiRaster.NONE, labels[p]);
+                    assertEquals(VoronoiRaster.NONE, exact[p]);
+                    continue;
+                }
+                double best = nearest(px, py);
+                assertEquals(best, Math.hypot(x[labels[p]] - px, y[labels[p]] - py), 1e-9);
+                assertEquals(best, Math.hypot(x[exact[p]] - px, y[exact[p]] - py));
+            }
+        }
+    }
+
+    public void testImage() {
+        int colors[] = new int[x.length];
+        for (int i = 0; i < colors.length; i++) {
+            colors[i] = 0xff000000 | i;
+        }
+        VoronoiRaster raster = new VoronoiRaster(100, 50, 0, 1000, 0, 500);
+        int labels[] = raster.rasterize(cells);
+        BufferedImage image = raster.createImage(cells, colors);
+        assertEquals(100, image.getWidth());
+        assertEquals(50, image.getHeight());
+        for (int r = 0; r < 50; r++) {
+            for (int c = 0; c < 100; c++) {
+                assertEquals(colors[labels[r * 100 + c]], image.getRGB(c, r));
+            }
+        }
+    }
+
+    public void testTooLarge() {
+        try {
+            new VoronoiRaster(65536, 65536, 0, 1000, 0, 1000);
+            fail("The pixels do not fit in an array");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package us.molini.graph;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import be.humphreys.simplevoronoi.ArrayVoronoi;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class ClustersTest extends TestCase {
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(ClustersTest.class);
+    }
+
+    static SiteGraph randomGraph(int count, long seed) {
+        Random rand = new Random(seed);
+        double x[] = new double[count];
+        double y[] = new double[count];
+        for (int i = 0; i < count; i++) {
+            x[i] = rand.nextDouble() * 1000.0;
+            y[i] = rand.nextDouble() * 1000.0;
+        }
+        ArrayVoronoi alg = new ArrayVoronoi(0);
+        alg.generateVoronoi(x, y, 0, 1000, 0, 1000);
+        return SiteGraph.build(x, y, alg.getTriangles());
+    }
+
+    // Breadth first search over the links within the distance
+    static int[] bruteForce(SiteGraph graph, double distance) {
+        int cluster[] = new int[graph.size()];
+        Arrays.fill(cluster, -1);
+        int count = 0;
+        for (int s = 0; s < graph.size(); s++) {
+            if (cluster[s] >= 0) {
+                continue;
+            }
+            ArrayDeque<Integer> open = new ArrayDeque<>();
+            open.add(s);
+            cluster[s] = count;
+            while (!open.isEmpty()) {
+                int n = open.poll();
+                for (int m : graph.getNeighbors(n)) {
+                    if (cluster[m] < 0 && graph.distance(n, m) <= distance) {
+                        cluster[m] = count;
+                        open.add(m);
+                    }
+                }
+            }
+            count++;
+        }
+        return cluster;
+    }
+
+    public void testOfRadius() {
+        SiteGraph graph = randomGraph(5000, 2111956);
+        int expected[] = bruteForce(graph, 12.0);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        Clusters clusters;
+        try {
+            clusters = Clusters.ofRadius(graph, 12.0, pool);
+        } finally {
+            pool.shutdown();
+        }
+        int total = 0;
+        for (int n = 0; n < graph.size(); n++) {
+            // The same numbering, both go by the first site
+            assertEquals(expected[n], clusters.getCluster(n));
+        }
+        for (int c = 0; c < clusters.size(); c++) {
+            for (int n : clusters.getSites(c)) {
+                assertEquals(c, clusters.getCluster(n));
+            }
+            total += clusters.getSize(c);
+        }
+        assertEquals(graph.size(), total);
+        assertTrue(clusters.size() > 1 && clusters.size() < graph.size());
+        assertEquals(1, Clusters.components(graph).size());
+        assertEquals(graph.size(), Clusters.ofRadius(graph, 0.0).size());
+    }
+
+    public void testDbscan() {
+        SiteGraph graph = randomGraph(5000, 1956);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        Clusters clusters;
+        try {
+            clusters = Clusters.dbscan(graph, 15.0, 4, pool);
+        } finally {
+            pool.shutdown();
+        }
+        int noise = 0;
+        for (int n = 0; n < graph.size(); n++) {
+            int close = 1;
+            int c = Clusters.NOISE;
+            for (int m : graph.getNeighbors(n)) {
+                if (graph.distance(n, m) <= 15.0) {
+                    close++;
+                }
+            }
+            boolean core = close >= 4;
+            for (int m : graph.getNeighbors(n)) {
+                if (graph.distance(n, m) > 15.0) {
+                    continue;
+                }
+                int k = 1;
+                for (int j : graph.getNeighbors(m)) {
+                    k += graph.distance(m, j) <= 15.0 ? 1 : 0;
+                }
+                if (k >= 4) {
+                    c = clusters.getCluster(m);
+                    // Linked core sites share their cluster
+                    if (core) {
+                        assertEquals(c, clusters.getCluster(n));
+                    }
+                }
+            }
+            if (!core) {
+                // Either noise or in the cluster of a core neighbour
+                assertEquals(c == Clusters.NOISE, clusters.getCluster(n) == Clusters.NOISE);
+                noise += c == Clusters.NOISE ? 1 : 0;
+            }
+        }
+        assertTrue(noise > 0);
+        assertTrue(clusters.size() > 1);
+    }
+
+    public void testGraphFactory() {
+        GraphFactory alg = new GraphFactory(0.1);
+        double x[] = { 0, 1, 0, 10, 11, 10, 30 };
+        double y[] = { 0, 0, 1, 10, 10, 11, 0 };
+        Point2D.Double p[] = new Point2D.Double[x.length];
+        for (int n = 0; n < x.length; n++) {
+            p[n] = new Point2D.Double(x[n], y[n]);
+        }
+        alg.generateVoronoi(p, -10, 40, -10, 40);
+        Clusters clusters = alg.clusters(2.0);
+        assertEquals(3, clusters.size());
+        assertEquals(3, clusters.getSize(clusters.getCluster(0)));
+        assertEquals(1, clusters.getSize(clusters.getCluster(6)));
+        clusters = alg.dbscan(2.0, 3);
+        assertEquals(2, clusters.size());
+        assertEquals(Clusters.NOISE, clusters.getCluster(6));
+    }
+}
@@ -2,7 +2,9 @@ package us.molini.graph;
 
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import be.humphreys.simplevoronoi.GraphEdge;
 import be.humphreys.simplevoronoi.Site;
@@ -156,6 +158,37 @@ public class GraphFactoryTest extends TestCase {
             }
         }
         assertEquals("Site 8 region", adj.size(), 6);
+        // Asking again gives the same answer
+        assertEquals("Site 0 region again", alg.closeTo(0, 5).size(), 3);
+    }
+
+    /**
+     * The nearest sites are exact also at the border of the box, where the edges are clipped.
+     */
+    public void testNearest() {
+        Random rand = new Random(2111956);
+        Point2D.Double p[] = new Point2D.Double[500];
+        for (int i = 0; i < p.length; i++) {
+            p[i] = new Point2D.Double(rand.nextDouble() * 1000.0, rand.nextDouble() * 1000.0);
+        }
+        GraphFactory alg = new GraphFactory(0.1);
+        // A box that cuts through the sites, so that many of their borders are outside of it
+        alg.generateVoronoi(p, 200, 800, 200, 800);
+        int found[] = new int[6];
+        for (int n = 0; n < p.length; n++) {
+            assertEquals(6, alg.nearest(n, 6, found));
+            double distances[] = new double[p.length - 1];
+            for (int m = 0, i = 0; m < p.length; m++) {
+                if (m != n) {
+                    distances[i++] = p[n].distance(p[m]);
+                }
+            }
+            Arrays.sort(distances);
+            for (int i = 0; i < 6; i++) {
+                assertEquals(distances[i], p[n].distance(p[found[i]]));
+            }
+        }
+        assertEquals(6, alg.nearest(0, 6).size());
     }
 
     /**
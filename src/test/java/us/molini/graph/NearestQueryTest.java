@@ -0,0 +1,84 @@
+package us.molini.graph;
+
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import be.humphreys.simplevoronoi.ArrayVoronoi;
+import be.humphreys.simplevoronoi.Site;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class NearestQueryTest extends TestCase {
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(NearestQueryTest.class);
+    }
+
+    static int[] bruteForce(double x[], double y[], double px, double py, int k, int skip) {
+        return IntStream.range(0, x.length).filter(i -> i != skip).boxed()
+                .sorted(Comparator.comparingDouble(i -> Math.hypot(x[i] - px, y[i] - py)))
+                .limit(k).mapToInt(Integer::intValue).toArray();
+    }
+
+    public void testNearest() {
+        Random rand = new Random(2111956);
+        double x[] = new double[2000];
+        double y[] = new double[2000];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = rand.nextDouble() * 1000.0;
+            y[i] = rand.nextDouble() * 1000.0;
+        }
+        ArrayVoronoi alg = new ArrayVoronoi(0);
+        alg.generateVoronoi(x, y, 0, 1000, 0, 1000);
+        NearestQuery query = new NearestQuery(SiteGraph.build(x, y, alg.getTriangles()));
+
+        int result[] = new int[10];
+        for (int n = 0; n < 200; n++) {
+            assertEquals(10, query.nearest(n, 10, result));
+            assertTrue(Arrays.equals(bruteForce(x, y, x[n], y[n], 10, n), result));
+            double px = rand.nextDouble() * 1200 - 100;
+            double py = rand.nextDouble() * 1200 - 100;
+            assertEquals(10, query.nearest(px, py, 10, result));
+            assertTrue(Arrays.equals(bruteForce(x, y, px, py, 10, -1), result));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        SiteGraph all;
+        try {
+            all = query.nearestAll(5, pool);
+        } finally {
+            pool.shutdown();
+        }
+        for (int n = 0; n < all.size(); n++) {
+            assertTrue(Arrays.equals(bruteForce(x, y, x[n], y[n], 5, n), all.getNeighbors(n)));
+        }
+        // More than there are
+        assertEquals(x.length - 1, query.nearest(0, 5000, new int[5000]));
+    }
+
+    public void testGraphFactory() {
+        final GraphFactory alg = new GraphFactory(0.1);
+        final double x[] = { 3, 5, 13, 0, 5, 6, 11, 20, 7 };
+        final double y[] = { 3, 2, 6, 15, 5, 9, 11, 15, 4 };
+        final Point2D.Double p[] = new Point2D.Double[x.length];
+        for (int n = 0; n < x.length; n++) {
+            p[n] = new Point2D.Double(x[n], y[n]);
+        }
+        alg.generateVoronoi(p, -1, 21, -1, 16);
+        List<Site> near = alg.nearest(0, 3);
+        assertEquals(3, near.size());
+        int expected[] = bruteForce(x, y, x[0], y[0], 3, 0);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(expected[i], near.get(i).sitenbr);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package us.molini.graph;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import be.humphreys.simplevoronoi.GraphEdge;
+import be.humphreys.simplevoronoi.VoronoiEngine;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class PathFinderTest extends TestCase {
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(PathFinderTest.class);
+    }
+
+    static PathFinder setup() {
+        Random rand = new Random(2111956);
+        double x[] = new double[3000];
+        double y[] = new double[3000];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = rand.nextDouble() * 1000.0;
+            y[i] = rand.nextDouble() * 1000.0;
+        }
+        List<GraphEdge> edges = new VoronoiEngine(0.1).compute(x, y, 0, 1000, 0, 1000);
+        return new PathFinder(SiteGraph.build(x, y, edges));
+    }
+
+    static double pathCost(PathFinder finder, int[] path, EdgeCost cost) {
+        SiteGraph graph = finder.getGraph();
+        double total = 0;
+        for (int p = 1; p < path.length; p++) {
+            int i = 0;
+            while (graph.getNeighbor(path[p - 1], i) != path[p]) {
+                i++;
+            }
+            total += cost.cost(graph, path[p - 1], path[p], i);
+        }
+        return total;
+    }
+
+    /**
+     * A* finds paths as cheap as Dijkstra, for both costs.
+     */
+    public void testPaths() {
+        PathFinder finder = setup();
+        int n = finder.getGraph().size();
+        double costs[] = new double[n];
+        int previous[] = new int[n];
+        for (EdgeCost cost : Arrays.asList(EdgeCost.DISTANCE, EdgeCost.BORDER_LENGTH)) {
+            finder.costs(5, cost, costs, previous);
+            assertEquals(0, costs[5], 0.0);
+            assertEquals(-1, previous[5]);
+            for (int to = 0; to < n; to += 97) {
+                int path[] = finder.path(5, to, cost);
+                assertEquals(5, path[0]);
+                assertEquals(to, path[path.length - 1]);
+                assertEquals(costs[to], pathCost(finder, path, cost), 1e-9);
+                assertEquals(costs[to], finder.cost(5, to, cost), 1e-9);
+                // The straight line is never longer
+                assertTrue(finder.getGraph().distance(5, to) <= pathCost(finder, path, EdgeCost.DISTANCE) + 1e-9);
+            }
+        }
+    }
+
+    public void testMultiSource() {
+        PathFinder finder = setup();
+        int n = finder.getGraph().size();
+        int sources[] = { 3, 300, 2000 };
+        double field[] = new double[n];
+        int previous[] = new int[n];
+        finder.costs(sources, EdgeCost.DISTANCE, field, previous);
+        double single[][] = new double[sources.length][n];
+        for (int s = 0; s < sources.length; s++) {
+            finder.costs(sources[s], EdgeCost.DISTANCE, single[s], null);
+        }
+        for (int i = 0; i < n; i++) {
+            double min = Math.min(single[0][i], Math.min(single[1][i], single[2][i]));
+            assertEquals(min, field[i], 1e-9);
+            int site = i;
+            while (previous[site] >= 0) {
+                site = previous[site];
+            }
+            assertTrue(site == 3 || site == 300 || site == 2000);
+        }
+    }
+}
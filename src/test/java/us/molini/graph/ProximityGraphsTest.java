@@ -0,0 +1,112 @@
+package us.molini.graph;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import be.humphreys.simplevoronoi.ArrayVoronoi;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class ProximityGraphsTest extends TestCase {
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(ProximityGraphsTest.class);
+    }
+
+    double x[] = new double[400];
+    double y[] = new double[400];
+    SiteGraph delaunay;
+
+    @Override
+    protected void setUp() {
+        Random rand = new Random(2111956);
+        for (int i = 0; i < x.length; i++) {
+            x[i] = rand.nextDouble() * 1000.0;
+            y[i] = rand.nextDouble() * 1000.0;
+        }
+        ArrayVoronoi alg = new ArrayVoronoi(0);
+        alg.generateVoronoi(x, y, 0, 1000, 0, 1000);
+        delaunay = SiteGraph.build(x, y, alg.getTriangles());
+    }
+
+    double d(int a, int b) {
+        return Math.hypot(x[a] - x[b], y[a] - y[b]);
+    }
+
+    public void testGabriel() {
+        SiteGraph gabriel = ProximityGraphs.gabrielGraph(delaunay);
+        int edges = 0;
+        for (int a = 0; a < x.length; a++) {
+            for (int b = a + 1; b < x.length; b++) {
+                double cx = (x[a] + x[b]) / 2, cy = (y[a] + y[b]) / 2, r = d(a, b) / 2;
+                boolean empty = true;
+                for (int c = 0; c < x.length && empty; c++) {
+                    empty = c == a || c == b || Math.hypot(x[c] - cx, y[c] - cy) >= r;
+                }
+                assertEquals(a + ":" + b, empty, gabriel.entry(a, b) >= 0);
+                assertEquals(empty, gabriel.entry(b, a) >= 0);
+                edges += empty ? 1 : 0;
+            }
+        }
+        assertTrue(edges > x.length);
+    }
+
+    public void testRelativeNeighborhood() {
+        SiteGraph rng = ProximityGraphs.relativeNeighborhoodGraph(delaunay);
+        for (int a = 0; a < x.length; a++) {
+            for (int b = a + 1; b < x.length; b++) {
+                boolean empty = true;
+                for (int c = 0; c < x.length && empty; c++) {
+                    empty = c == a || c == b || Math.max(d(a, c), d(b, c)) >= d(a, b);
+                }
+                assertEquals(a + ":" + b, empty, rng.entry(a, b) >= 0);
+                assertEquals(empty, rng.entry(b, a) >= 0);
+            }
+        }
+    }
+
+    public void testMinimumSpanningTree() {
+        SiteGraph tree = ProximityGraphs.minimumSpanningTree(delaunay);
+        int n = x.length;
+        // Prim on all pairs
+        boolean in[] = new boolean[n];
+        double best[] = new double[n];
+        Arrays.fill(best, Double.POSITIVE_INFINITY);
+        best[0] = 0;
+        double total = 0;
+        for (int k = 0; k < n; k++) {
+            int u = -1;
+            for (int i = 0; i < n; i++) {
+                if (!in[i] && (u < 0 || best[i] < best[u])) {
+                    u = i;
+                }
+            }
+            in[u] = true;
+            total += best[u];
+            for (int i = 0; i < n; i++) {
+                best[i] = Math.min(best[i], d(u, i));
+            }
+        }
+        double length = 0;
+        int entries = 0;
+        for (int a = 0; a < n; a++) {
+            for (int b : tree.getNeighbors(a)) {
+                length += d(a, b);
+                entries++;
+            }
+        }
+        assertEquals(2 * (n - 1), entries);
+        assertEquals(2 * total, length, 1e-6);
+        // The tree is in the relative neighbourhood graph
+        SiteGraph rng = ProximityGraphs.relativeNeighborhoodGraph(delaunay);
+        for (int a = 0; a < n; a++) {
+            for (int b : tree.getNeighbors(a)) {
+                assertTrue(rng.entry(a, b) >= 0);
+            }
+        }
+    }
+}
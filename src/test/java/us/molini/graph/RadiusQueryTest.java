@@ -0,0 +1,97 @@
+package us.molini.graph;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import be.humphreys.simplevoronoi.GraphEdge;
+import be.humphreys.simplevoronoi.VoronoiEngine;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class RadiusQueryTest extends TestCase {
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(RadiusQueryTest.class);
+    }
+
+    static RadiusQuery setup(int sites) {
+        Random rand = new Random(2111956);
+        double x[] = new double[sites];
+        double y[] = new double[sites];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = rand.nextDouble() * 1000.0;
+            y[i] = rand.nextDouble() * 1000.0;
+        }
+        List<GraphEdge> edges = new VoronoiEngine(0.1).compute(x, y, 0, 1000, 0, 1000);
+        return new RadiusQuery(SiteGraph.build(x, y, edges));
+    }
+
+    static int[] sorted(int[] a) {
+        int[] b = a.clone();
+        Arrays.sort(b);
+        return b;
+    }
+
+    /**
+     * A query can be repeated, and a region far larger than the stack is no problem.
+     */
+    public void testRepeat() {
+        RadiusQuery query = setup(20000);
+        int[] first = query.closeTo(7, 50);
+        assertTrue(first.length > 0);
+        assertTrue(Arrays.equals(first, query.closeTo(7, 50)));
+        assertEquals(query.getGraph().size() - 1, query.closeTo(7, 5000).length);
+    }
+
+    public void testConcurrent() throws Exception {
+        RadiusQuery query = setup(5000);
+        int[][] expected = new int[200][];
+        for (int n = 0; n < expected.length; n++) {
+            expected[n] = query.closeTo(n, 80);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] futures = new Future<?>[8];
+            for (int t = 0; t < futures.length; t++) {
+                futures[t] = executor.submit(() -> {
+                    for (int n = 0; n < expected.length; n++) {
+                        assertTrue(Arrays.equals(expected[n], query.closeTo(n, 80)));
+                    }
+                });
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testAll() {
+        RadiusQuery query = setup(3000);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        SiteGraph all;
+        try {
+            all = query.closeToAll(60, pool);
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(3000, all.size());
+        for (int n = 0; n < all.size(); n++) {
+            int[] close = query.closeTo(n, 60);
+            assertTrue(Arrays.equals(sorted(close), sorted(all.getNeighbors(n))));
+            for (int m : close) {
+                assertTrue(query.getGraph().distance(n, m) <= 60);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package us.molini.graph;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import be.humphreys.simplevoronoi.EdgeBuffer;
+import be.humphreys.simplevoronoi.GraphEdge;
+import be.humphreys.simplevoronoi.VoronoiEngine;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class SiteGraphTest extends TestCase {
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(SiteGraphTest.class);
+    }
+
+    /**
+     * Every edge is in the graph once in both directions, and nothing else is.
+     */
+    public void testEdges() {
+        Random rand = new Random(2111956);
+        double x[] = new double[2000];
+        double y[] = new double[2000];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = rand.nextDouble() * 1000.0;
+            y[i] = rand.nextDouble() * 1000.0;
+        }
+        List<GraphEdge> edges = new VoronoiEngine(0.1).compute(x, y, 0, 1000, 0, 1000);
+        SiteGraph graph = SiteGraph.build(x, y, edges);
+        Set<Long> expected = new HashSet<>();
+        for (GraphEdge e : edges) {
+            expected.add(e.site1 * 100000L + e.site2);
+            expected.add(e.site2 * 100000L + e.site1);
+        }
+        int count = 0;
+        for (int n = 0; n < graph.size(); n++) {
+            Set<Integer> row = new HashSet<>();
+            for (int i = 0; i < graph.getDegree(n); i++) {
+                int m = graph.getNeighbor(n, i);
+                assertTrue("Listed twice", row.add(m));
+                assertTrue(expected.contains(n * 100000L + m));
+                count++;
+            }
+            assertEquals(graph.getDegree(n), graph.getNeighbors(n).length);
+        }
+        assertEquals(expected.size(), count);
+
+        SiteGraph buffered = SiteGraph.build(x, y, new VoronoiEngine(0.1).computeEdges(x, y, 0, 1000, 0, 1000));
+        for (int n = 0; n < graph.size(); n++) {
+            assertEquals(graph.getDegree(n), buffered.getDegree(n));
+        }
+    }
+
+    /**
+     * Pairs that are reported twice are listed once with the longer border, also around a hub.
+     */
+    public void testDuplicates() {
+        int spokes = 64;
+        double x[] = new double[spokes + 1];
+        double y[] = new double[spokes + 1];
+        int[] triangles = new int[3 * spokes];
+        for (int i = 0; i < spokes; i++) {
+            x[i + 1] = Math.cos(2 * Math.PI * i / spokes);
+            y[i + 1] = Math.sin(2 * Math.PI * i / spokes);
+            triangles[3 * i] = 0;
+            triangles[3 * i + 1] = i + 1;
+            triangles[3 * i + 2] = (i + 1) % spokes + 1;
+        }
+        SiteGraph fan = SiteGraph.build(x, y, triangles);
+        assertEquals(spokes, fan.getDegree(0));
+        for (int i = 1; i <= spokes; i++) {
+            assertEquals(3, fan.getDegree(i));
+        }
+        try {
+            fan.getBorderLength(0, 0);
+            fail("The triangles have no borders");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        EdgeBuffer edges = new EdgeBuffer();
+        edges.add(0, 0, 1, 0, 0, 1);
+        edges.add(0, 0, 3, 0, 1, 0);
+        edges.add(0, 0, 2, 0, 0, 1);
+        SiteGraph graph = SiteGraph.build(new double[2], new double[2], edges);
+        assertEquals(1, graph.getDegree(0));
+        assertEquals(1, graph.getDegree(1));
+        assertEquals(3.0, graph.getBorderLength(0, 0), 0.0);
+        assertEquals(3.0, graph.getBorderLength(1, 0), 0.0);
+    }
+}
@@ -0,0 +1,61 @@
+package us.molini.graph;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import be.humphreys.simplevoronoi.ArrayVoronoi;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class SiteLocatorTest extends TestCase {
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite() {
+        return new TestSuite(SiteLocatorTest.class);
+    }
+
+    static int bruteForce(double x[], double y[], double px, double py) {
+        int best = 0;
+        for (int i = 1; i < x.length; i++) {
+            if (Math.hypot(x[i] - px, y[i] - py) < Math.hypot(x[best] - px, y[best] - py)) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    public void testNearest() {
+        Random rand = new Random(2111956);
+        double x[] = new double[5000];
+        double y[] = new double[5000];
+        for (int i = 0; i < x.length; i++) {
+            // Clustered, so that many grid cells are empty
+            x[i] = rand.nextGaussian() * 100.0 + (i % 2) * 600;
+            y[i] = rand.nextGaussian() * 100.0;
+        }
+        ArrayVoronoi alg = new ArrayVoronoi(0);
+        alg.generateVoronoi(x, y, -1000, 1000, -1000, 1000);
+        SiteLocator locator = new SiteLocator(SiteGraph.build(x, y, alg.getTriangles()));
+
+        double points[] = new double[2 * 3000];
+        for (int p = 0; p < points.length; p++) {
+            points[p] = rand.nextDouble() * 2000 - 1000;
+        }
+        int result[] = new int[points.length / 2];
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            locator.nearest(points, result, pool);
+        } finally {
+            pool.shutdown();
+        }
+        for (int p = 0; p < result.length; p++) {
+            int expected = bruteForce(x, y, points[2 * p], points[2 * p + 1]);
+            assertEquals(expected, locator.nearest(points[2 * p], points[2 * p + 1]));
+            assertEquals(expected, result[p]);
+        }
+        assertEquals(17, locator.walk(4000, x[17], y[17]));
+    }
+}